@@ -4,7 +4,11 @@ module org.example.retoconjuntoad_di_2 {
 
     requires org.hibernate.orm.core;
     requires jakarta.persistence;
+    requires jakarta.transaction;
     requires java.naming;
+    requires java.sql;
+    requires com.zaxxer.hikari;
+    requires com.fasterxml.jackson.core;
     requires static lombok;
 
     opens org.example.retoconjuntoad_di_2 to javafx.fxml;
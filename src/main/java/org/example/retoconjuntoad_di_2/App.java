@@ -4,15 +4,30 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.DbExecutor;
 import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.Vistas;
 
 import java.io.IOException;
 
 public class App extends Application {
     @Override
     public void start(Stage stage) throws IOException {
+        // La base de datos arranca en segundo plano mientras se muestra el login
+        // y, cuando está lista, se precargan los diálogos de detalle en el hilo de JavaFX.
+        DataProvider.iniciarAsync().thenRun(() -> Vistas.precargar(
+                "/org/example/retoconjuntoad_di_2/copy-detail-view.fxml",
+                "/org/example/retoconjuntoad_di_2/pelicula-detail-view.fxml"
+        ));
         JavaFXUtil.initStage(stage);
         JavaFXUtil.setScene("/org/example/retoconjuntoad_di_2/login-view.fxml");
 
     }
+
+    @Override
+    public void stop() {
+        DbExecutor.shutdown();
+        DataProvider.close();
+    }
 }
@@ -0,0 +1,38 @@
+package org.example.retoconjuntoad_di_2.controllers;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaResumen;
+
+/**
+ * Valores de las columnas de la tabla de copias.
+ * Se separan del controlador para poder medirlos sin levantar la interfaz.
+ */
+public final class ColumnasCopia {
+
+    private ColumnasCopia() {}
+
+    public static ObservableValue<String> id(CopiaResumen copia) {
+        return new SimpleStringProperty(copia.getId() != null ? copia.getId().toString() : "");
+    }
+
+    public static ObservableValue<String> titulo(CopiaResumen copia) {
+        return new SimpleStringProperty(copia.getTitulo() != null ? copia.getTitulo() : "");
+    }
+
+    public static ObservableValue<String> genero(CopiaResumen copia) {
+        return new SimpleStringProperty(copia.getGenero() != null ? copia.getGenero() : "");
+    }
+
+    public static ObservableValue<String> anio(CopiaResumen copia) {
+        return new SimpleStringProperty(copia.getAnio() != null ? copia.getAnio().toString() : "");
+    }
+
+    public static ObservableValue<String> estado(CopiaResumen copia) {
+        return new SimpleStringProperty(copia.getEstado() != null ? copia.getEstado() : "");
+    }
+
+    public static ObservableValue<String> soporte(CopiaResumen copia) {
+        return new SimpleStringProperty(copia.getSoporte() != null ? copia.getSoporte() : "");
+    }
+}
@@ -1,25 +1,34 @@
 package org.example.retoconjuntoad_di_2.controllers;
 
+import javafx.animation.PauseTransition;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import org.example.retoconjuntoad_di_2.model.copia.CambiosCopias;
 import org.example.retoconjuntoad_di_2.model.copia.Copia;
 import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
 import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
 import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
+import org.example.retoconjuntoad_di_2.utils.AsyncRepository;
+import org.example.retoconjuntoad_di_2.utils.ConflictoConcurrenciaException;
 import org.example.retoconjuntoad_di_2.utils.DataProvider;
 import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.Reiniciable;
 
 import java.net.URL;
+import java.util.List;
+import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controlador para gestionar los detalles de una copia.
  * Permite visualizar, editar, guardar y eliminar copias.
  */
-public class CopyDetailController implements Initializable {
+public class CopyDetailController implements Initializable, Reiniciable {
 
     public Button btnGuardar;
     public Button btnEliminar;
@@ -28,6 +37,9 @@ public class CopyDetailController implements Initializable {
     @FXML
     private Label lblId; // Etiqueta para mostrar el ID de la copia.
 
+    @FXML
+    private TextField txtBuscarPelicula; // Campo para buscar películas en el servidor.
+
     @FXML
     private ComboBox<Pelicula> comboPelicula; // ComboBox para seleccionar una película.
 
@@ -47,8 +59,13 @@ public class CopyDetailController implements Initializable {
     private ComboBox<String> comboSoporte; // ComboBox para seleccionar el soporte de la copia.
 
     private Copia copia; // Objeto Copia que se está gestionando.
-    private CopiaRepository copiaRepository; // Repositorio para gestionar las copias.
-    private PeliculaRepository peliculaRepository; // Repositorio para gestionar las películas.
+    private AsyncRepository<Copia, CopiaRepository> copiaRepository; // Repositorio asíncrono para gestionar las copias.
+    private AsyncRepository<Pelicula, PeliculaRepository> peliculaRepository; // Repositorio asíncrono para gestionar las películas.
+    private CompletableFuture<List<Pelicula>> cargaPeliculas; // Carga del catálogo en curso, si la hay.
+    private List<Pelicula> catalogo = List.of(); // Catálogo completo, para restaurarlo al borrar la búsqueda.
+    private CompletableFuture<List<Pelicula>> busquedaEnCurso; // Búsqueda en curso, si la hay.
+    private final PauseTransition esperaBusqueda = new PauseTransition(Duration.millis(300));
+    private static final int MAX_RESULTADOS_BUSQUEDA = 50; // Películas mostradas al buscar.
 
     /**
      * Inicializa el controlador y configura los elementos de la interfaz.
@@ -58,15 +75,16 @@ public class CopyDetailController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        copiaRepository = new CopiaRepository(DataProvider.getSessionFactory());
-        peliculaRepository = new PeliculaRepository(DataProvider.getSessionFactory());
+        copiaRepository = new AsyncRepository<>(new CopiaRepository(DataProvider.getSessionFactory()));
+        peliculaRepository = new AsyncRepository<>(new PeliculaRepository(DataProvider.getSessionFactory()));
 
         // Configurar opciones de estado y soporte.
-        comboEstado.getItems().addAll("Nueva", "Buena", "Usada", "Deteriorada");
-        comboSoporte.getItems().addAll("DVD", "Blu-ray", "VHS");
+        comboEstado.getItems().addAll(Copia.ESTADOS);
+        comboSoporte.getItems().addAll(Copia.SOPORTES);
 
-        // Cargar todas las películas en el ComboBox.
-        comboPelicula.getItems().setAll(peliculaRepository.findAll());
+        // Buscar películas en el servidor cuando el usuario deja de escribir.
+        esperaBusqueda.setOnFinished(e -> buscarPeliculas());
+        txtBuscarPelicula.textProperty().addListener((obs, oldVal, newVal) -> esperaBusqueda.playFromStart());
 
         // Actualizar los campos de información al cambiar la película seleccionada.
         comboPelicula.getSelectionModel().selectedItemProperty().addListener(
@@ -74,6 +92,97 @@ public class CopyDetailController implements Initializable {
         );
     }
 
+    /**
+     * Deja la ventana vacía para una nueva apertura y recarga el catálogo de películas
+     * en segundo plano (la consulta del catálogo está en la caché de segundo nivel).
+     */
+    @Override
+    public void reiniciar() {
+        cancelarPendientes();
+        copia = null;
+
+        txtBuscarPelicula.clear();
+        esperaBusqueda.stop(); // Borrar el texto no debe lanzar una búsqueda
+        txtBuscarPelicula.setDisable(false);
+        comboPelicula.getSelectionModel().clearSelection();
+        comboEstado.getSelectionModel().clearSelection();
+        comboSoporte.getSelectionModel().clearSelection();
+        lblId.setText("-");
+        actualizarDatosPelicula(null);
+        setBotonesDeshabilitados(false);
+
+        cargarPeliculas();
+    }
+
+    /**
+     * Carga el catálogo de películas sin bloquear la interfaz.
+     * Mientras tanto el ComboBox queda deshabilitado con un texto de espera.
+     */
+    private void cargarPeliculas() {
+        comboPelicula.setDisable(true);
+        comboPelicula.setPromptText("Cargando películas...");
+
+        CompletableFuture<List<Pelicula>> peticion = peliculaRepository.findAll();
+        cargaPeliculas = peticion;
+        peticion.thenAccept(peliculas -> {
+            catalogo = peliculas;
+            comboPelicula.getItems().setAll(peliculas);
+            comboPelicula.setPromptText("");
+            // La copia se asigna antes de que llegue el catálogo: se vuelve a seleccionar su película.
+            if (copia != null && copia.getPelicula() != null) {
+                comboPelicula.getSelectionModel().select(copia.getPelicula());
+            }
+            if (copia == null || copia.getId() == null) {
+                comboPelicula.setDisable(false);
+            }
+        }).exceptionally(ex -> {
+            if (!peticion.isCancelled()) {
+                comboPelicula.setPromptText("Error al cargar");
+                JavaFXUtil.showError("Películas", "No se pudo cargar el catálogo", ex);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Filtra el ComboBox con las películas que contienen el texto buscado en el título,
+     * el director o la descripción, ordenadas por relevancia. Sin texto se muestra
+     * de nuevo el catálogo completo.
+     */
+    private void buscarPeliculas() {
+        if (busquedaEnCurso != null) {
+            busquedaEnCurso.cancel(true);
+            busquedaEnCurso = null;
+        }
+
+        Pelicula seleccionada = comboPelicula.getSelectionModel().getSelectedItem();
+        String texto = txtBuscarPelicula.getText() != null ? txtBuscarPelicula.getText().trim() : "";
+        if (texto.isEmpty()) {
+            comboPelicula.getItems().setAll(catalogo);
+            comboPelicula.getSelectionModel().select(seleccionada);
+            return;
+        }
+
+        CompletableFuture<List<Pelicula>> peticion =
+                peliculaRepository.run(r -> r.buscarTexto(texto, 0, MAX_RESULTADOS_BUSQUEDA));
+        busquedaEnCurso = peticion;
+        peticion.thenAccept(peliculas -> {
+            busquedaEnCurso = null;
+            comboPelicula.getItems().setAll(peliculas);
+            if (seleccionada != null && peliculas.contains(seleccionada)) {
+                comboPelicula.getSelectionModel().select(seleccionada);
+            } else if (!comboPelicula.isDisabled()) {
+                comboPelicula.show();
+            }
+        }).exceptionally(ex -> {
+            if (!peticion.isCancelled()) {
+                busquedaEnCurso = null;
+                JavaFXUtil.showError("Películas", "No se pudo realizar la búsqueda", ex);
+            }
+            return null;
+        });
+    }
+
     /**
      * Establece la copia que se va a gestionar y rellena los campos con sus datos.
      *
@@ -105,6 +214,7 @@ public class CopyDetailController implements Initializable {
             if (copia.getId() != null) {
                 // Si la copia ya existe, no se permite cambiar de película.
                 comboPelicula.setDisable(true);
+                txtBuscarPelicula.setDisable(true);
             }
             actualizarDatosPelicula(copia.getPelicula());
         } else {
@@ -169,17 +279,99 @@ public class CopyDetailController implements Initializable {
         copia.setEstado(estado);
         copia.setSoporte(soporte);
 
-        // Guardar la copia en el repositorio.
-        copiaRepository.save(copia);
+        // Guardar la copia en el repositorio sin bloquear la interfaz.
+        boolean nueva = copia.getId() == null;
+        setBotonesDeshabilitados(true);
+        copiaRepository.save(copia).whenComplete((guardada, ex) -> {
+            setBotonesDeshabilitados(false);
+            if (ex != null && ConflictoConcurrenciaException.esConflicto(ex)) {
+                resolverConflicto(peliculaSeleccionada, estado, soporte);
+                return;
+            }
+            if (ex != null) {
+                JavaFXUtil.showError("Guardar copia", "No se pudo guardar la copia", ex);
+                return;
+            }
+            // La tabla principal se actualiza con la copia guardada, sin recargar la lista.
+            CambiosCopias.publicarGuardada(guardada, nueva);
 
-        JavaFXUtil.showModal(
-                Alert.AlertType.INFORMATION,
-                "Guardar copia",
-                "Operación realizada",
-                "La copia se ha guardado correctamente."
-        );
+            JavaFXUtil.showModal(
+                    Alert.AlertType.INFORMATION,
+                    "Guardar copia",
+                    "Operación realizada",
+                    "La copia se ha guardado correctamente."
+            );
 
-        cerrarVentana();
+            cerrarVentana();
+        });
+    }
+
+    /**
+     * Ofrece recargar la copia cuando otro usuario la ha guardado mientras se editaba:
+     * se puede ver la versión actual descartando los cambios, o volver a aplicar los cambios
+     * sobre ella y guardar de nuevo.
+     *
+     * @param pelicula Película elegida por el usuario.
+     * @param estado   Estado elegido por el usuario.
+     * @param soporte  Soporte elegido por el usuario.
+     */
+    private void resolverConflicto(Pelicula pelicula, String estado, String soporte) {
+        ButtonType recargar = new ButtonType("Recargar");
+        ButtonType reintentar = new ButtonType("Guardar mis cambios");
+        Alert alerta = new Alert(Alert.AlertType.WARNING, "", recargar, reintentar, ButtonType.CANCEL);
+        alerta.setTitle("Guardar copia");
+        alerta.setHeaderText("Otro usuario ha modificado esta copia");
+        alerta.setContentText("Puedes recargar los datos actuales o aplicar tus cambios sobre ellos y guardar de nuevo.");
+        alerta.initOwner(comboEstado.getScene().getWindow());
+
+        Optional<ButtonType> opcion = alerta.showAndWait();
+        if (opcion.isEmpty() || opcion.get() == ButtonType.CANCEL) {
+            return;
+        }
+        if (opcion.get() == reintentar) {
+            recargarCopia(() -> {
+                comboPelicula.getSelectionModel().select(pelicula);
+                comboEstado.getSelectionModel().select(estado);
+                comboSoporte.getSelectionModel().select(soporte);
+                guardar(null);
+            });
+        } else {
+            recargarCopia(() -> {});
+        }
+    }
+
+    /**
+     * Vuelve a cargar la copia de la base de datos y la muestra.
+     * Si ya no existe, se avisa y se cierra la ventana.
+     *
+     * @param despues Acción a ejecutar una vez mostrada la copia actual.
+     */
+    private void recargarCopia(Runnable despues) {
+        Integer id = copia.getId();
+        setBotonesDeshabilitados(true);
+        copiaRepository.findById(id.longValue()).whenComplete((actual, ex) -> {
+            setBotonesDeshabilitados(false);
+            if (ex != null) {
+                JavaFXUtil.showError("Copia", "No se pudo recargar la copia", ex);
+                return;
+            }
+            if (actual.isEmpty()) {
+                JavaFXUtil.showModal(
+                        Alert.AlertType.INFORMATION,
+                        "Copia",
+                        "La copia ya no existe",
+                        "Otro usuario la ha borrado."
+                );
+                CambiosCopias.publicarBorrada(id);
+                cerrarVentana();
+                return;
+            }
+
+            setCopia(actual.get());
+            // La tabla principal también pasa a mostrar los datos actuales.
+            CambiosCopias.publicarGuardada(actual.get(), false);
+            despues.run();
+        });
     }
 
     /**
@@ -195,17 +387,36 @@ public class CopyDetailController implements Initializable {
             return;
         }
 
-        // Eliminar la copia del repositorio.
-        copiaRepository.delete(copia);
+        // Eliminar la copia del repositorio sin bloquear la interfaz.
+        setBotonesDeshabilitados(true);
+        copiaRepository.delete(copia).whenComplete((eliminada, ex) -> {
+            setBotonesDeshabilitados(false);
+            if (ex != null && ConflictoConcurrenciaException.esConflicto(ex)) {
+                // Se muestran los datos actuales para que el usuario decida si sigue queriendo borrarla.
+                JavaFXUtil.showModal(
+                        Alert.AlertType.WARNING,
+                        "Eliminar copia",
+                        "Otro usuario ha modificado esta copia",
+                        "Se mostrarán los datos actuales. Vuelve a pulsar Eliminar si aún quieres borrarla."
+                );
+                recargarCopia(() -> {});
+                return;
+            }
+            if (ex != null) {
+                JavaFXUtil.showError("Eliminar copia", "No se pudo eliminar la copia", ex);
+                return;
+            }
+            CambiosCopias.publicarBorrada(copia.getId());
 
-        JavaFXUtil.showModal(
-                Alert.AlertType.INFORMATION,
-                "Eliminar copia",
-                "Operación realizada",
-                "La copia se ha eliminado correctamente."
-        );
+            JavaFXUtil.showModal(
+                    Alert.AlertType.INFORMATION,
+                    "Eliminar copia",
+                    "Operación realizada",
+                    "La copia se ha eliminado correctamente."
+            );
 
-        cerrarVentana();
+            cerrarVentana();
+        });
     }
 
     /**
@@ -219,9 +430,36 @@ public class CopyDetailController implements Initializable {
     }
 
     /**
-     * Cierra la ventana actual.
+     * Habilita o deshabilita los botones mientras hay una operación en curso.
+     *
+     * @param deshabilitados true para deshabilitarlos.
+     */
+    private void setBotonesDeshabilitados(boolean deshabilitados) {
+        btnGuardar.setDisable(deshabilitados);
+        btnEliminar.setDisable(deshabilitados);
+    }
+
+    /**
+     * Cancela la carga del catálogo y la búsqueda si siguen en curso.
+     */
+    private void cancelarPendientes() {
+        if (cargaPeliculas != null) {
+            cargaPeliculas.cancel(true);
+            cargaPeliculas = null;
+        }
+        esperaBusqueda.stop();
+        if (busquedaEnCurso != null) {
+            busquedaEnCurso.cancel(true);
+            busquedaEnCurso = null;
+        }
+    }
+
+    /**
+     * Cierra la ventana actual, cancelando la carga del catálogo si sigue en curso.
+     * La ventana solo se oculta: se reutiliza en la siguiente apertura.
      */
     private void cerrarVentana() {
+        cancelarPendientes();
         Stage stage = (Stage) comboEstado.getScene().getWindow();
         stage.close();
     }
@@ -0,0 +1,145 @@
+package org.example.retoconjuntoad_di_2.controllers;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
+import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio.ResumenOperacion;
+import org.example.retoconjuntoad_di_2.utils.Reiniciable;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Locale;
+import java.util.ResourceBundle;
+import java.util.function.Function;
+
+/**
+ * Controlador de la ventana de diagnóstico (solo administradores).
+ * Muestra las latencias por operación de repositorio, las consultas más lentas,
+ * el estado del pool de conexiones y la caché del catálogo, y permite exportarlo
+ * todo en formato Prometheus.
+ */
+public class DiagnosticsController implements Initializable, Reiniciable {
+
+    @FXML private Label lblPool;   // Estado del pool de conexiones.
+    @FXML private Label lblCache;  // Aciertos y fallos de la caché del catálogo.
+    @FXML private TableView<ResumenOperacion> tablaOperaciones; // Métricas por operación.
+    @FXML private TableColumn<ResumenOperacion, String> cOperacion;
+    @FXML private TableColumn<ResumenOperacion, String> cLlamadas;
+    @FXML private TableColumn<ResumenOperacion, String> cErrores;
+    @FXML private TableColumn<ResumenOperacion, String> cP50;
+    @FXML private TableColumn<ResumenOperacion, String> cP95;
+    @FXML private TableColumn<ResumenOperacion, String> cP99;
+    @FXML private TableColumn<ResumenOperacion, String> cMax;
+    @FXML private TableColumn<ResumenOperacion, String> cFilas;
+    @FXML private TableColumn<ResumenOperacion, String> cSentencias;
+    @FXML private ListView<String> listaConsultasLentas; // Consultas con mayor tiempo máximo.
+
+    /**
+     * Configura las columnas de la tabla.
+     *
+     * @param url URL de inicialización.
+     * @param resourceBundle Recursos de inicialización.
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        columna(cOperacion, ResumenOperacion::getOperacion);
+        columna(cLlamadas, r -> Long.toString(r.getLlamadas()));
+        columna(cErrores, r -> Long.toString(r.getErrores()));
+        columna(cP50, r -> decimal(r.getP50Ms()));
+        columna(cP95, r -> decimal(r.getP95Ms()));
+        columna(cP99, r -> decimal(r.getP99Ms()));
+        columna(cMax, r -> decimal(r.getMaxMs()));
+        columna(cFilas, r -> decimal(r.getFilasPorLlamada()));
+        columna(cSentencias, r -> decimal(r.getSentenciasPorLlamada()));
+    }
+
+    /**
+     * Carga las métricas actuales cada vez que se abre la ventana.
+     */
+    @Override
+    public void reiniciar() {
+        actualizar(null);
+    }
+
+    /**
+     * Vuelve a leer las métricas del registro, del pool y de Hibernate.
+     *
+     * @param actionEvent Evento de acción.
+     */
+    @FXML
+    public void actualizar(ActionEvent actionEvent) {
+        tablaOperaciones.getItems().setAll(MetricasRepositorio.resumen());
+        listaConsultasLentas.getItems().setAll(
+                MetricasRepositorio.consultasLentas(DataProvider.getSessionFactory()).stream()
+                        .map(c -> c.getMaxMs() + " ms máx, " + c.getMediaMs() + " ms media, "
+                                + c.getEjecuciones() + " ejecuciones - " + c.getConsulta())
+                        .toList()
+        );
+        lblPool.setText(DataProvider.getMetricasPool()
+                + (DataProvider.getPoolLectura(DataProvider.getSessionFactory()) != null
+                ? "\nSolo lectura - " + DataProvider.getMetricasPoolLectura()
+                : ""));
+        lblCache.setText("Caché del catálogo: "
+                + new PeliculaRepository(DataProvider.getSessionFactory()).getEstadisticasCache());
+    }
+
+    /**
+     * Exporta las métricas a un fichero de texto en formato Prometheus.
+     *
+     * @param actionEvent Evento de acción.
+     */
+    @FXML
+    public void exportar(ActionEvent actionEvent) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exportar métricas");
+        chooser.setInitialFileName("gestor_pelis.prom");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Prometheus", "*.prom"));
+        File fichero = chooser.showSaveDialog(tablaOperaciones.getScene().getWindow());
+        if (fichero == null) {
+            return;
+        }
+
+        try {
+            MetricasRepositorio.exportarPrometheus(fichero.toPath());
+            JavaFXUtil.showModal(
+                    Alert.AlertType.INFORMATION,
+                    "Exportar métricas",
+                    "Operación realizada",
+                    "Métricas exportadas a " + fichero.getName() + "."
+            );
+        } catch (IOException e) {
+            JavaFXUtil.showError("Exportar métricas", "No se pudieron exportar las métricas", e);
+        }
+    }
+
+    /**
+     * Cierra la ventana de diagnóstico.
+     *
+     * @param actionEvent Evento de acción.
+     */
+    @FXML
+    public void cerrar(ActionEvent actionEvent) {
+        ((Stage) tablaOperaciones.getScene().getWindow()).close();
+    }
+
+    private static void columna(TableColumn<ResumenOperacion, String> columna, Function<ResumenOperacion, String> valor) {
+        columna.setCellValueFactory(cellData -> new SimpleStringProperty(valor.apply(cellData.getValue())));
+    }
+
+    private static String decimal(double valor) {
+        return String.format(Locale.ROOT, "%.2f", valor);
+    }
+}
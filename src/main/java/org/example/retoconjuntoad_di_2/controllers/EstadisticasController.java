@@ -0,0 +1,130 @@
+package org.example.retoconjuntoad_di_2.controllers;
+
+import javafx.event.ActionEvent;
+import javafx.fxml.FXML;
+import javafx.fxml.Initializable;
+import javafx.scene.chart.BarChart;
+import javafx.scene.chart.PieChart;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.stage.Stage;
+import org.example.retoconjuntoad_di_2.estadisticas.Recuento;
+import org.example.retoconjuntoad_di_2.estadisticas.ResumenEstadisticas;
+import org.example.retoconjuntoad_di_2.estadisticas.ServicioEstadisticas;
+import org.example.retoconjuntoad_di_2.session.SimpleSessionService;
+import org.example.retoconjuntoad_di_2.session.UsuarioSesion;
+import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.DbExecutor;
+import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.Reiniciable;
+
+import java.net.URL;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.ResourceBundle;
+
+/**
+ * Controlador de la ventana de estadísticas.
+ * Muestra el reparto de las copias del usuario por género, soporte, estado y año;
+ * los administradores pueden ver también las de toda la base de datos.
+ * Los recuentos se calculan en la base de datos fuera del hilo de JavaFX.
+ */
+public class EstadisticasController implements Initializable, Reiniciable {
+
+    private static final DateTimeFormatter FORMATO_HORA = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    @FXML private Label lblTotal;          // Total de copias y hora del cálculo.
+    @FXML private PieChart graficoGenero;  // Copias por género.
+    @FXML private PieChart graficoSoporte; // Copias por soporte.
+    @FXML private PieChart graficoEstado;  // Copias por estado.
+    @FXML private BarChart<String, Number> graficoAnio; // Copias por año.
+    @FXML private CheckBox chkGlobal;      // Estadísticas de todos los usuarios (solo administradores).
+    @FXML private Button btnActualizar;
+
+    private ServicioEstadisticas servicioEstadisticas;
+    private SimpleSessionService simpleSessionService;
+
+    /**
+     * Crea el servicio de estadísticas. La vista se reutiliza, así que se crea una sola vez.
+     *
+     * @param url URL de inicialización.
+     * @param resourceBundle Recursos de inicialización.
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        servicioEstadisticas = new ServicioEstadisticas(DataProvider.getSessionFactory());
+        simpleSessionService = new SimpleSessionService();
+    }
+
+    /**
+     * Ajusta la ventana al usuario actual y carga sus estadísticas.
+     */
+    @Override
+    public void reiniciar() {
+        UsuarioSesion user = simpleSessionService.getActive();
+        boolean esAdmin = user != null && user.isEsAdmin();
+        chkGlobal.setSelected(false);
+        chkGlobal.setVisible(esAdmin);
+        chkGlobal.setManaged(esAdmin);
+        actualizar(null);
+    }
+
+    /**
+     * Vuelve a pedir las estadísticas al servicio (de la caché si siguen vigentes).
+     *
+     * @param actionEvent Evento de acción.
+     */
+    @FXML
+    public void actualizar(ActionEvent actionEvent) {
+        UsuarioSesion user = simpleSessionService.getActive();
+        if (user == null) {
+            return;
+        }
+        Integer idUsuario = chkGlobal.isSelected() ? null : user.getId();
+
+        btnActualizar.setDisable(true);
+        lblTotal.setText("Calculando...");
+        DbExecutor.supplyAsync(() -> servicioEstadisticas.calcular(idUsuario))
+                .whenComplete((resumen, ex) -> {
+                    btnActualizar.setDisable(false);
+                    if (ex != null) {
+                        lblTotal.setText("Copias: -");
+                        JavaFXUtil.showError("Estadísticas", "No se pudieron calcular las estadísticas", ex);
+                        return;
+                    }
+                    mostrar(resumen);
+                });
+    }
+
+    /**
+     * Cierra la ventana de estadísticas.
+     *
+     * @param actionEvent Evento de acción.
+     */
+    @FXML
+    public void cerrar(ActionEvent actionEvent) {
+        ((Stage) lblTotal.getScene().getWindow()).close();
+    }
+
+    private void mostrar(ResumenEstadisticas resumen) {
+        lblTotal.setText("Copias: " + resumen.getTotalCopias()
+                + " (calculado a las " + resumen.getCalculado().format(FORMATO_HORA) + ")");
+        rellenar(graficoGenero, resumen.getPorGenero());
+        rellenar(graficoSoporte, resumen.getPorSoporte());
+        rellenar(graficoEstado, resumen.getPorEstado());
+
+        XYChart.Series<String, Number> serie = new XYChart.Series<>();
+        for (Recuento recuento : resumen.getPorAnio()) {
+            serie.getData().add(new XYChart.Data<>(recuento.getClave(), recuento.getTotal()));
+        }
+        graficoAnio.getData().setAll(List.of(serie));
+    }
+
+    private static void rellenar(PieChart grafico, List<Recuento> recuentos) {
+        grafico.getData().setAll(recuentos.stream()
+                .map(r -> new PieChart.Data(r.getClave() + " (" + r.getTotal() + ")", r.getTotal()))
+                .toList());
+    }
+}
@@ -1,16 +1,21 @@
 package org.example.retoconjuntoad_di_2.controllers;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import org.example.retoconjuntoad_di_2.model.user.User;
 import org.example.retoconjuntoad_di_2.model.user.UserRepository;
 import org.example.retoconjuntoad_di_2.session.AuthService;
 import org.example.retoconjuntoad_di_2.session.SimpleSessionService;
+import org.example.retoconjuntoad_di_2.session.UsuarioSesion;
 import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.DbExecutor;
 import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio;
+import org.example.retoconjuntoad_di_2.utils.Reiniciable;
 
 import java.net.URL;
 import java.util.Optional;
@@ -20,7 +25,7 @@ import java.util.ResourceBundle;
  * Controlador para gestionar el inicio de sesión de usuarios.
  * Permite validar credenciales y acceder a la aplicación principal.
  */
-public class LoginController implements Initializable {
+public class LoginController implements Initializable, Reiniciable {
 
     @javafx.fxml.FXML
     private TextField txtContraseña; // Campo de texto para ingresar la contraseña.
@@ -31,21 +36,55 @@ public class LoginController implements Initializable {
     @javafx.fxml.FXML
     private Label info; // Etiqueta para mostrar mensajes informativos o de error.
 
+    @javafx.fxml.FXML
+    private Button btnEntrar; // Botón de entrar, deshabilitado mientras se validan las credenciales.
+
     private UserRepository userRepository; // Repositorio para gestionar usuarios.
     private AuthService authService; // Servicio de autenticación de usuarios.
 
     /**
-     * Inicializa el controlador y configura los servicios necesarios.
+     * Inicializa el controlador y espera a que la base de datos esté lista.
      *
      * @param url URL de inicialización.
      * @param resourceBundle Recursos de inicialización.
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // Se crean los servicios necesarios para la autenticación.
-        userRepository = new UserRepository(DataProvider.getSessionFactory());
-        authService = new AuthService(userRepository);
         info.setText(""); // Limpia el mensaje informativo al iniciar.
+        conectar();
+    }
+
+    /**
+     * Limpia el formulario al volver al login (por ejemplo, tras cerrar sesión).
+     */
+    @Override
+    public void reiniciar() {
+        txtCorreo.clear();
+        txtContraseña.clear();
+        if (authService != null) {
+            info.setText("");
+        }
+    }
+
+    /**
+     * Espera a que termine el arranque de la base de datos (iniciado en App.start)
+     * con el botón de entrar deshabilitado, y después crea los servicios de autenticación.
+     */
+    private void conectar() {
+        btnEntrar.setDisable(true);
+        info.setText("Conectando con la base de datos...");
+        DataProvider.iniciarAsync().whenComplete((sessionFactory, ex) -> Platform.runLater(() -> {
+            btnEntrar.setDisable(false);
+            info.setText("");
+            if (ex != null) {
+                info.setText("Sin conexión. Pulsa Entrar para reintentar.");
+                JavaFXUtil.showError("Error de conexión", "No se pudo conectar con la base de datos", ex);
+                return;
+            }
+            // Se crean los servicios necesarios para la autenticación.
+            userRepository = new UserRepository(sessionFactory);
+            authService = new AuthService(userRepository);
+        }));
     }
 
     /**
@@ -56,6 +95,10 @@ public class LoginController implements Initializable {
      */
     @javafx.fxml.FXML
     public void entrar(ActionEvent actionEvent) {
+        if (authService == null) {
+            conectar(); // El arranque falló: se vuelve a intentar
+            return;
+        }
         info.setText("");
 
         String usuario = txtCorreo.getText();
@@ -73,9 +116,31 @@ public class LoginController implements Initializable {
             return;
         }
 
-        // Validar las credenciales del usuario.
-        Optional<User> user = authService.validateUser(usuario, contrasena);
+        // Validar las credenciales del usuario en segundo plano.
+        long inicio = System.nanoTime();
+        btnEntrar.setDisable(true);
+        info.setText("Comprobando credenciales...");
+        DbExecutor.supplyAsync(() -> authService.validateUser(usuario, contrasena))
+                .whenComplete((user, ex) -> {
+                    // Tiempo desde el clic hasta tener la respuesta, incluida la espera en el ejecutor
+                    MetricasRepositorio.registrar("Login.credenciales", System.nanoTime() - inicio);
+                    btnEntrar.setDisable(false);
+                    info.setText("");
+                    if (ex != null) {
+                        JavaFXUtil.showError("Error de login", "No se pudo conectar con la base de datos", ex);
+                        return;
+                    }
+                    completarLogin(user, inicio);
+                });
+    }
 
+    /**
+     * Completa el inicio de sesión una vez validadas las credenciales.
+     *
+     * @param user   Usuario validado, o vacío si las credenciales no son correctas.
+     * @param inicio Instante (System.nanoTime) en que se pulsó Entrar.
+     */
+    private void completarLogin(Optional<UsuarioSesion> user, long inicio) {
         if (user.isEmpty()) {
             info.setText("Usuario o contraseña incorrectos.");
             JavaFXUtil.showModal(
@@ -94,16 +159,18 @@ public class LoginController implements Initializable {
 
         // Cambiar a la ventana principal del gestor de películas.
         JavaFXUtil.setScene("/org/example/retoconjuntoad_di_2/main-view.fxml");
+        // Login completo: desde el clic hasta mostrar la ventana principal (las copias se cargan después)
+        MetricasRepositorio.registrar("Login.total", System.nanoTime() - inicio);
     }
 
     /**
      * Maneja el evento de salir de la aplicación.
-     * Finaliza la ejecución del programa.
+     * Finaliza la ejecución del programa cerrando antes las conexiones (App.stop).
      *
      * @param actionEvent Evento de acción generado al presionar el botón de salir.
      */
     @javafx.fxml.FXML
     public void Salir(ActionEvent actionEvent) {
-        System.exit(0);
+        Platform.exit();
     }
 }
@@ -1,35 +1,69 @@
 package org.example.retoconjuntoad_di_2.controllers;
 
-import javafx.beans.property.SimpleStringProperty;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.stage.Modality;
-import javafx.stage.Stage;
+import javafx.scene.layout.GridPane;
+import javafx.stage.FileChooser;
+import javafx.stage.Window;
+import javafx.util.Duration;
+import org.example.retoconjuntoad_di_2.importacion.ImportadorInventario;
+import org.example.retoconjuntoad_di_2.model.copia.CambiosCopias;
+import org.example.retoconjuntoad_di_2.model.copia.CambiosDesde;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaBorrada;
 import org.example.retoconjuntoad_di_2.model.copia.Copia;
 import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaResumen;
+import org.example.retoconjuntoad_di_2.model.copia.FormatoExportacion;
+import org.example.retoconjuntoad_di_2.model.copia.PaginaBusqueda;
 import org.example.retoconjuntoad_di_2.model.user.User;
 import org.example.retoconjuntoad_di_2.session.SimpleSessionService;
+import org.example.retoconjuntoad_di_2.session.UsuarioSesion;
+import org.example.retoconjuntoad_di_2.utils.AsyncRepository;
 import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.DbExecutor;
+import org.example.retoconjuntoad_di_2.utils.IndicePrefijos;
 import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.Reiniciable;
+import org.example.retoconjuntoad_di_2.utils.Vistas;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
-public class MainController implements Initializable {
+public class MainController implements Initializable, Reiniciable, CambiosCopias.Oyente {
 
     public Button btnAñadir;
     public Button btnBorrar;
     public Button btnDetalle;
 
+    @FXML
+    private Button btnCambiarVarias;
+
     @FXML
     private Button btnLogout;
 
@@ -43,44 +77,135 @@ public class MainController implements Initializable {
     private Label lblTotalCopias;
 
     @FXML
-    private TableView<Copia> tabla;
+    private Label lblSincronizacion;
 
     @FXML
-    private TableColumn<Copia, String> cId;
+    private TableView<CopiaResumen> tabla;
 
     @FXML
-    private TableColumn<Copia, String> cTitulo;
+    private TableColumn<CopiaResumen, String> cId;
 
     @FXML
-    private TableColumn<Copia, String> cGenero;
+    private TableColumn<CopiaResumen, String> cTitulo;
 
     @FXML
-    private TableColumn<Copia, String> cAnio;
+    private TableColumn<CopiaResumen, String> cGenero;
 
     @FXML
-    private TableColumn<Copia, String> cEstado;
+    private TableColumn<CopiaResumen, String> cAnio;
 
     @FXML
-    private TableColumn<Copia, String> cSoporte;
+    private TableColumn<CopiaResumen, String> cEstado;
+
+    @FXML
+    private TableColumn<CopiaResumen, String> cSoporte;
 
     @FXML
     private Button btnAddPelicula;
 
+    @FXML
+    private Button btnImportar;
+
+    @FXML
+    private Button btnExportar;
+
+    @FXML
+    private Button btnDiagnostico;
+
     @FXML
     private TextField txtBuscar; // Campo de búsqueda por título
 
+    @FXML
+    private CheckBox chkBuscarServidor; // Buscar en el servidor por título, director y descripción
+
     private SimpleSessionService simpleSessionService;
-    private CopiaRepository copiaRepository;
+    private AsyncRepository<Copia, CopiaRepository> copiaRepository;
 
     // Lista completa y lista filtrada para la tabla
-    private final ObservableList<Copia> copiasUsuario = FXCollections.observableArrayList();
-    private FilteredList<Copia> copiasFiltradas;
+    private final ObservableList<CopiaResumen> copiasUsuario = FXCollections.observableArrayList();
+    private final ObservableList<CopiaResumen> copiasFiltradas = FXCollections.observableArrayList(); // Ordenada por ID
+
+    // Índice de títulos normalizados, sincronizado con copiasUsuario, para la búsqueda por prefijo
+    private final IndicePrefijos<CopiaResumen> indiceTitulos = new IndicePrefijos<>(CopiaResumen::getTitulo);
+    // Filtro por prefijo activo, normalizado (null si no hay filtro)
+    private String prefijoFiltro;
+
+    // Búsqueda de texto completo en el servidor: resultados paginados y petición en curso
+    private final ObservableList<CopiaResumen> resultadosServidor = FXCollections.observableArrayList();
+    private final PauseTransition esperaBusqueda = new PauseTransition(Duration.millis(300));
+    private CompletableFuture<PaginaBusqueda> busquedaEnCurso;
+    private Double relevanciaServidor;     // Clave de la última fila recibida: relevancia...
+    private Integer ultimoIdServidor;      // ...e ID (null antes de la primera página)
+    private boolean quedanResultadosServidor;
+
+    // Paginación por clave: tamaño de página y estado de la carga incremental
+    private static final int TAMANO_PAGINA = 200;
+    private static final double UMBRAL_SCROLL = 0.9; // Fracción del scroll a partir de la cual se pide otra página
+    private static final double ALTO_FILA_ESTIMADO = 24; // Alto de fila por defecto de TableView, en píxeles
+    private Integer ultimoIdCargado; // ID de la última copia cargada (null si no hay ninguna)
+    private boolean quedanPaginas;   // Indica si aún hay copias por cargar en la base de datos
+    private long totalCopias;        // Número total de copias del usuario en la base de datos
 
+    // Consultas en curso; se cancelan si la lista se recarga antes de que terminen
+    private CompletableFuture<Long> conteoEnCurso;
+    private CompletableFuture<List<CopiaResumen>> paginaEnCurso;
+
+    private static final int TAMANO_LOTE_IMPORTACION = 1000; // Filas confirmadas por transacción al importar
+
+    // Sincronización periódica de los cambios hechos desde otros puestos
+    private static final Duration INTERVALO_SINCRONIZACION = Duration.seconds(5);
+    private static final long MARGEN_SINCRONIZACION_SEGUNDOS = 5; // Cubre transacciones confirmadas después de tomar su marca
+    private final Timeline sincronizacion = new Timeline(new KeyFrame(INTERVALO_SINCRONIZACION, e -> sincronizar()));
+    private boolean sincronizacionIniciada;     // Ya se conoce la marca de la carga actual
+    private LocalDateTime marcaSincronizacion;  // Último cambio ya aplicado a la lista (null si no hay ninguno)
+    private CompletableFuture<?> sincronizacionEnCurso;
+    private static final int MAX_CICLOS_ESPERA = 12;  // Tras fallos seguidos, como mucho un minuto sin intentarlo
+    private int fallosSincronizacion;                 // Fallos seguidos de la sincronización
+    private int ciclosEnEspera;                       // Ciclos que se saltan antes del siguiente intento
+    private ObservableValue<Boolean> vistaVisible;    // La tabla está en una ventana abierta
+
+    /**
+     * Configuración que no depende del usuario: tabla, búsqueda y paginación.
+     * La vista se reutiliza entre sesiones; lo que depende del usuario se hace en {@link #reiniciar()}.
+     */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         simpleSessionService = new SimpleSessionService();
-        copiaRepository = new CopiaRepository(DataProvider.getSessionFactory());
+        copiaRepository = new AsyncRepository<>(new CopiaRepository(DataProvider.getSessionFactory()));
 
+        configurarTabla();
+
+        // Configurar lista filtrada y búsqueda
+        configurarIndiceTitulos();
+        mostrarListaLocal();
+
+        configurarBusqueda();
+        configurarPaginacion();
+
+        // Las copias guardadas o borradas se aplican directamente sobre la lista cargada
+        CambiosCopias.suscribir(this);
+
+        // Los cambios de otros puestos se comprueban periódicamente en segundo plano, solo mientras
+        // la vista se muestra: se para al cerrar sesión (la ventana pasa a otra escena) o al cerrarla
+        sincronizacion.setCycleCount(Animation.INDEFINITE);
+        vistaVisible = tabla.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false);
+        vistaVisible.subscribe(visible -> {
+            if (visible) {
+                sincronizacion.play();
+            } else {
+                sincronizacion.stop();
+            }
+        });
+    }
+
+    /**
+     * Prepara la vista para el usuario que acaba de iniciar sesión y carga sus copias.
+     */
+    @Override
+    public void reiniciar() {
         if (!simpleSessionService.isLoggedIn()) {
             JavaFXUtil.showModal(
                     Alert.AlertType.WARNING,
@@ -88,78 +213,99 @@ public class MainController implements Initializable {
                     "No hay usuario logueado",
                     "Vuelve a iniciar sesión."
             );
-            JavaFXUtil.setScene("/org/example/retoconjuntoad_di_2/login-view.fxml");
+            // Se vuelve al login cuando termine de mostrarse esta vista
+            Platform.runLater(() -> JavaFXUtil.setScene("/org/example/retoconjuntoad_di_2/login-view.fxml"));
             return;
         }
 
-        User user = simpleSessionService.getActive();
+        UsuarioSesion user = simpleSessionService.getActive();
         lblUsuario.setText("Usuario: " + user.getNombreUsuario());
 
-        if (!user.isEsAdmin()) {
-            btnAddPelicula.setVisible(false);
-            btnAddPelicula.setManaged(false);
+        boolean esAdmin = user.isEsAdmin();
+        for (Button soloAdmin : List.of(btnAddPelicula, btnImportar, btnDiagnostico)) {
+            soloAdmin.setVisible(esAdmin);
+            soloAdmin.setManaged(esAdmin);
         }
 
-        configurarTabla();
-
-        // Configurar lista filtrada y búsqueda
-        copiasFiltradas = new FilteredList<>(copiasUsuario, copia -> true);
-        tabla.setItems(copiasFiltradas);
-
-        configurarBusqueda();
+        // Sin búsqueda de la sesión anterior
+        if (chkBuscarServidor != null) {
+            chkBuscarServidor.setSelected(false);
+        }
+        txtBuscar.clear();
+        cancelarBusquedaServidor();
+        resultadosServidor.clear();
+        mostrarListaLocal();
 
         cargarCopiasUsuario(user);
     }
 
+    /**
+     * Enlaza las columnas de la tabla con la proyección plana de cada copia.
+     */
     private void configurarTabla() {
-        cId.setCellValueFactory(cellData ->
-                new SimpleStringProperty(
-                        cellData.getValue().getId() != null
-                                ? cellData.getValue().getId().toString()
-                                : ""
-                )
-        );
-
-        cTitulo.setCellValueFactory(cellData ->
-                new SimpleStringProperty(
-                        cellData.getValue().getPelicula() != null
-                                ? cellData.getValue().getPelicula().getTitulo()
-                                : ""
-                )
-        );
+        cId.setCellValueFactory(cellData -> ColumnasCopia.id(cellData.getValue()));
+        cTitulo.setCellValueFactory(cellData -> ColumnasCopia.titulo(cellData.getValue()));
+        cGenero.setCellValueFactory(cellData -> ColumnasCopia.genero(cellData.getValue()));
+        cAnio.setCellValueFactory(cellData -> ColumnasCopia.anio(cellData.getValue()));
+        cEstado.setCellValueFactory(cellData -> ColumnasCopia.estado(cellData.getValue()));
+        cSoporte.setCellValueFactory(cellData -> ColumnasCopia.soporte(cellData.getValue()));
 
-        cGenero.setCellValueFactory(cellData ->
-                new SimpleStringProperty(
-                        cellData.getValue().getPelicula() != null
-                                ? cellData.getValue().getPelicula().getGenero()
-                                : ""
-                )
-        );
+        // Varias copias a la vez para borrarlas o cambiarlas en bloque
+        tabla.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+    }
 
-        cAnio.setCellValueFactory(cellData ->
-                new SimpleStringProperty(
-                        (cellData.getValue().getPelicula() != null
-                                && cellData.getValue().getPelicula().getAnio() != null)
-                                ? cellData.getValue().getPelicula().getAnio().toString()
-                                : ""
-                )
-        );
+    /**
+     * Mantiene el índice de títulos, y la lista filtrada si hay un filtro activo, sincronizados
+     * con la lista de copias cargadas. Solo se procesan las filas de cada cambio, nunca la lista
+     * entera, así que cargar una página más no vuelve a filtrar las anteriores.
+     */
+    private void configurarIndiceTitulos() {
+        copiasUsuario.addListener((ListChangeListener<CopiaResumen>) cambio -> {
+            while (cambio.next()) {
+                if (cambio.wasRemoved()) {
+                    if (copiasUsuario.isEmpty()) {
+                        indiceTitulos.limpiar();
+                        copiasFiltradas.clear();
+                    } else {
+                        indiceTitulos.quitarTodos(cambio.getRemoved());
+                        if (prefijoFiltro != null) {
+                            cambio.getRemoved().forEach(this::quitarDeFiltradas);
+                        }
+                    }
+                }
+                if (cambio.wasAdded()) {
+                    indiceTitulos.agregarTodos(cambio.getAddedSubList());
+                    if (prefijoFiltro != null) {
+                        // Las filas nuevas deben respetar el filtro activo
+                        for (CopiaResumen copia : cambio.getAddedSubList()) {
+                            if (IndicePrefijos.normalizar(copia.getTitulo()).startsWith(prefijoFiltro)) {
+                                int posicion = buscarPorId(copiasFiltradas, copia.getId());
+                                if (posicion < 0) {
+                                    copiasFiltradas.add(-posicion - 1, copia);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        });
+    }
 
-        cEstado.setCellValueFactory(cellData ->
-                new SimpleStringProperty(
-                        cellData.getValue().getEstado() != null
-                                ? cellData.getValue().getEstado()
-                                : ""
-                )
-        );
+    /**
+     * Quita una fila de la lista filtrada, localizándola por ID con búsqueda binaria.
+     */
+    private void quitarDeFiltradas(CopiaResumen copia) {
+        int posicion = buscarPorId(copiasFiltradas, copia.getId());
+        if (posicion >= 0 && copiasFiltradas.get(posicion) == copia) {
+            copiasFiltradas.remove(posicion);
+        }
+    }
 
-        cSoporte.setCellValueFactory(cellData ->
-                new SimpleStringProperty(
-                        cellData.getValue().getSoporte() != null
-                                ? cellData.getValue().getSoporte()
-                                : ""
-                )
-        );
+    /**
+     * Muestra en la tabla las copias cargadas: todas, o solo las filtradas si hay filtro.
+     */
+    private void mostrarListaLocal() {
+        tabla.setItems(prefijoFiltro != null ? copiasFiltradas : copiasUsuario);
     }
 
     /**
@@ -171,40 +317,493 @@ public class MainController implements Initializable {
         }
 
         txtBuscar.textProperty().addListener((obs, oldValue, newValue) -> {
-            String filtro = newValue != null ? newValue.trim().toLowerCase() : "";
+            if (isBusquedaServidor()) {
+                // Se espera a que el usuario deje de escribir antes de consultar al servidor
+                esperaBusqueda.playFromStart();
+                return;
+            }
+            aplicarFiltro(newValue);
 
-            copiasFiltradas.setPredicate(copia -> {
-                if (filtro.isEmpty()) {
-                    return true;
-                }
-                if (copia.getPelicula() == null || copia.getPelicula().getTitulo() == null) {
-                    return false;
+            // Actualizar contador con las filas visibles
+            actualizarTotal();
+        });
+
+        esperaBusqueda.setOnFinished(e -> buscarEnServidor(true));
+        if (chkBuscarServidor != null) {
+            chkBuscarServidor.selectedProperty().addListener((obs, oldValue, newValue) -> {
+                if (newValue) {
+                    buscarEnServidor(true);
+                } else {
+                    cancelarBusquedaServidor();
+                    aplicarFiltro(txtBuscar.getText());
+                    mostrarListaLocal();
+                    actualizarTotal();
                 }
-                String titulo = copia.getPelicula().getTitulo().toLowerCase();
-                // Empieza por el texto escrito, p.ej. "el pa"
-                return titulo.startsWith(filtro);
             });
+        }
+    }
 
-            // Actualizar contador con las filas visibles
-            lblTotalCopias.setText("Total de copias: " + copiasFiltradas.size());
+    /**
+     * @return true si la búsqueda de texto completo en el servidor está activada.
+     */
+    private boolean isBusquedaServidor() {
+        return chkBuscarServidor != null && chkBuscarServidor.isSelected();
+    }
+
+    /**
+     * Busca en el servidor las copias cuya película contiene el texto escrito en el título,
+     * el director o la descripción. Los resultados se muestran por relevancia y se piden
+     * más páginas al hacer scroll.
+     *
+     * @param nueva true para empezar una búsqueda nueva, false para pedir la siguiente página.
+     */
+    private void buscarEnServidor(boolean nueva) {
+        String texto = txtBuscar.getText() != null ? txtBuscar.getText().trim() : "";
+        if (nueva) {
+            cancelarBusquedaServidor();
+            resultadosServidor.clear();
+            relevanciaServidor = null;
+            ultimoIdServidor = null;
+            quedanResultadosServidor = true;
+        }
+        if (texto.isEmpty()) {
+            // Sin texto se vuelve a la colección completa
+            aplicarFiltro("");
+            mostrarListaLocal();
+            actualizarTotal();
+            return;
+        }
+        if (!quedanResultadosServidor || busquedaEnCurso != null) {
+            return;
+        }
+
+        tabla.setItems(resultadosServidor);
+        if (resultadosServidor.isEmpty()) {
+            tabla.setPlaceholder(new ProgressIndicator());
+        }
+
+        UsuarioSesion user = simpleSessionService.getActive();
+        Double relevancia = relevanciaServidor;
+        Integer desde = ultimoIdServidor;
+        CompletableFuture<PaginaBusqueda> peticion =
+                copiaRepository.run(r -> r.buscarTexto(user.getId(), texto, relevancia, desde, TAMANO_PAGINA));
+        busquedaEnCurso = peticion;
+
+        peticion.thenAccept(resultados -> {
+            busquedaEnCurso = null;
+            resultadosServidor.addAll(resultados.getCopias());
+            if (resultados.getUltimoId() != null) {
+                relevanciaServidor = resultados.getRelevancia();
+                ultimoIdServidor = resultados.getUltimoId();
+            }
+            quedanResultadosServidor = resultados.getCopias().size() == TAMANO_PAGINA;
+            tabla.setPlaceholder(new Label("No hay copias que coincidan con la búsqueda."));
+            actualizarTotal();
+        }).exceptionally(ex -> {
+            if (!peticion.isCancelled()) {
+                busquedaEnCurso = null;
+                tabla.setPlaceholder(new Label("No se pudo realizar la búsqueda."));
+                JavaFXUtil.showError("Buscar", "No se pudo realizar la búsqueda", ex);
+            }
+            return null;
         });
     }
 
     /**
-     * Carga las copias del usuario en la lista base y actualiza el total.
+     * Cancela la búsqueda en el servidor en curso, si la hay; su resultado ya no interesa.
+     */
+    private void cancelarBusquedaServidor() {
+        esperaBusqueda.stop();
+        if (busquedaEnCurso != null) {
+            busquedaEnCurso.cancel(true);
+            busquedaEnCurso = null;
+        }
+    }
+
+    /**
+     * Filtra la tabla por títulos que empiezan por el texto indicado (sin distinguir
+     * mayúsculas ni tildes). Las coincidencias se leen del rango del índice de prefijos,
+     * sin recorrer ni comprobar las filas que no coinciden: el coste depende del número
+     * de coincidencias, no del de copias cargadas.
+     *
+     * @param texto Texto escrito en el campo de búsqueda.
+     */
+    private void aplicarFiltro(String texto) {
+        String filtro = texto != null ? texto.trim() : "";
+        if (filtro.isEmpty()) {
+            prefijoFiltro = null;
+            copiasFiltradas.clear();
+        } else {
+            // Empieza por el texto escrito, p.ej. "el pa"
+            prefijoFiltro = IndicePrefijos.normalizar(filtro);
+            List<CopiaResumen> coincidencias = new ArrayList<>();
+            indiceTitulos.rango(filtro).forEach(coincidencias::addAll);
+            coincidencias.sort(Comparator.comparing(CopiaResumen::getId)); // Mismo orden que la lista completa
+            copiasFiltradas.setAll(coincidencias);
+        }
+        if (tabla.getItems() != resultadosServidor) {
+            mostrarListaLocal();
+            completarVista();
+        }
+    }
+
+    /**
+     * Configura la carga bajo demanda: cuando el usuario se acerca al final
+     * del scroll vertical de la tabla, se pide la siguiente página. Si la tabla
+     * crece y las filas visibles ya no la llenan, también.
      */
-    private void cargarCopiasUsuario(User user) {
+    private void configurarPaginacion() {
+        tabla.heightProperty().addListener((obs, oldValue, newValue) -> completarVista());
+        tabla.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node nodo : tabla.lookupAll(".scroll-bar")) {
+                if (nodo instanceof ScrollBar barra && barra.getOrientation() == Orientation.VERTICAL) {
+                    barra.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= barra.getMax() * UMBRAL_SCROLL) {
+                            if (tabla.getItems() == resultadosServidor) {
+                                buscarEnServidor(false);
+                            } else {
+                                cargarSiguientePagina();
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Pide otra página mientras las filas visibles no llenen la tabla y queden páginas.
+     * Con un filtro que deja pocas coincidencias no aparece barra de scroll, así que
+     * sin esto nunca se cargarían las páginas en las que pueden estar el resto.
+     */
+    private void completarVista() {
+        if (!quedanPaginas || tabla.getItems() == resultadosServidor) {
+            return;
+        }
+        double altoFila = tabla.getFixedCellSize() > 0 ? tabla.getFixedCellSize() : ALTO_FILA_ESTIMADO;
+        if (tabla.getItems().size() < Math.ceil(tabla.getHeight() / altoFila)) {
+            cargarSiguientePagina();
+        }
+    }
+
+    /**
+     * Reinicia la lista de copias del usuario y carga solo la primera página.
+     * El resto de páginas se cargan a medida que el usuario hace scroll.
+     */
+    private void cargarCopiasUsuario(UsuarioSesion user) {
+        // Los resultados pendientes de una carga anterior ya no son válidos
+        if (conteoEnCurso != null) {
+            conteoEnCurso.cancel(true);
+        }
+        if (paginaEnCurso != null) {
+            paginaEnCurso.cancel(true);
+            paginaEnCurso = null;
+        }
+
+        if (sincronizacionEnCurso != null) {
+            sincronizacionEnCurso.cancel(true);
+            sincronizacionEnCurso = null;
+        }
+
         copiasUsuario.clear();
-        List<Copia> copias = copiaRepository.findByUser(user);
-        copiasUsuario.addAll(copias);
+        ultimoIdCargado = null;
+        quedanPaginas = true;
+
+        // Marca de partida para sincronizar después solo los cambios
+        sincronizacionIniciada = false;
+        marcaSincronizacion = null;
+        CompletableFuture<LocalDateTime> marca = copiaRepository.run(r -> r.ultimaModificacion(user.getId()));
+        sincronizacionEnCurso = marca;
+        marca.thenAccept(ultima -> {
+            sincronizacionEnCurso = null;
+            marcaSincronizacion = ultima;
+            sincronizacionIniciada = true;
+        }).exceptionally(ex -> {
+            if (!marca.isCancelled()) {
+                sincronizacionEnCurso = null;
+            }
+            return null;
+        });
+        tabla.setPlaceholder(new ProgressIndicator());
+        lblTotalCopias.setText("Total de copias: ...");
+
+        CompletableFuture<Long> conteo = copiaRepository.run(r -> r.countByUser(user.getId()));
+        conteoEnCurso = conteo;
+        conteo.thenAccept(total -> {
+            totalCopias = total;
+            actualizarTotal();
+        }).exceptionally(ex -> {
+            if (!conteo.isCancelled()) {
+                JavaFXUtil.showError("Error", "No se pudo contar las copias", ex);
+            }
+            return null;
+        });
+
+        cargarSiguientePagina();
+    }
+
+    /**
+     * Carga en segundo plano la siguiente página de copias a partir de la última copia cargada.
+     * Si ya hay una página en camino no se pide otra.
+     */
+    private void cargarSiguientePagina() {
+        if (!quedanPaginas || paginaEnCurso != null) {
+            return;
+        }
+
+        UsuarioSesion user = simpleSessionService.getActive();
+        Integer desde = ultimoIdCargado;
+        CompletableFuture<List<CopiaResumen>> peticion =
+                copiaRepository.run(r -> r.findPageByUser(user.getId(), desde, TAMANO_PAGINA));
+        paginaEnCurso = peticion;
+
+        peticion.thenAccept(pagina -> {
+            paginaEnCurso = null;
+            if (!pagina.isEmpty()) {
+                ultimoIdCargado = pagina.get(pagina.size() - 1).getId();
+                copiasUsuario.addAll(pagina);
+            }
+            quedanPaginas = pagina.size() == TAMANO_PAGINA;
+            tabla.setPlaceholder(new Label("No hay copias que mostrar."));
 
-        // Al recargar, se aplica el filtro actual automáticamente
-        lblTotalCopias.setText("Total de copias: " + copiasFiltradas.size());
+            // Al cargar, se aplica el filtro actual automáticamente
+            actualizarTotal();
+            completarVista();
+        }).exceptionally(ex -> {
+            if (!peticion.isCancelled()) {
+                paginaEnCurso = null;
+                tabla.setPlaceholder(new Label("No se pudieron cargar las copias."));
+                JavaFXUtil.showError("Error", "No se pudieron cargar las copias", ex);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Aplica una copia guardada a la lista cargada sin volver a consultar la base de datos.
+     * La lista está ordenada por ID (paginación por clave), así que la posición se busca
+     * por bisección. Una copia nueva con ID posterior a la última página cargada no se añade:
+     * llegará con la página que le corresponda al hacer scroll.
+     *
+     * @param copia Copia guardada, con su película cargada.
+     * @param nueva true si la copia se acaba de insertar.
+     */
+    @Override
+    public void copiaGuardada(Copia copia, boolean nueva) {
+        UsuarioSesion user = simpleSessionService.getActive();
+        if (user == null || copia.getUser() == null || !Objects.equals(copia.getUser().getId(), user.getId())) {
+            return;
+        }
+
+        aplicarResumen(CopiaResumen.de(copia));
+        if (nueva) {
+            totalCopias++;
+        }
+        actualizarTotal();
+    }
+
+    /**
+     * Inserta o sustituye una copia en la lista cargada, manteniendo el orden por ID.
+     *
+     * @param resumen Datos actuales de la copia.
+     */
+    private void aplicarResumen(CopiaResumen resumen) {
+        Integer id = resumen.getId();
+        int posicion = buscarPorId(id);
+        if (posicion >= 0) {
+            copiasUsuario.set(posicion, resumen);
+        } else if (ultimoIdCargado != null && id <= ultimoIdCargado || !quedanPaginas) {
+            copiasUsuario.add(-posicion - 1, resumen);
+            if (ultimoIdCargado == null || id > ultimoIdCargado) {
+                ultimoIdCargado = id;
+            }
+        }
+
+        // Los resultados de la búsqueda en el servidor no están ordenados por ID
+        resultadosServidor.replaceAll(r -> r.getId().equals(id) ? resumen : r);
+    }
+
+    /**
+     * Comprueba si otro puesto ha cambiado las copias del usuario y, si es así, aplica solo
+     * esos cambios a la lista. Cuando no hay cambios cuesta una única consulta mínima.
+     * Los cambios se piden desde un poco antes de la última marca aplicada, por si alguna
+     * transacción confirmó después de tomar su marca de tiempo; aplicarlos dos veces no importa.
+     */
+    private void sincronizar() {
+        UsuarioSesion user = simpleSessionService.getActive();
+        if (user == null || !sincronizacionIniciada || sincronizacionEnCurso != null) {
+            return;
+        }
+        if (ciclosEnEspera > 0) {
+            ciclosEnEspera--; // Falló hace poco: se espacian los intentos
+            return;
+        }
+
+        CompletableFuture<LocalDateTime> sondeo = copiaRepository.run(r -> r.ultimaModificacion(user.getId()));
+        sincronizacionEnCurso = sondeo;
+        sondeo.thenAccept(ultima -> {
+            sincronizacionEnCurso = null;
+            sincronizacionCorrecta();
+            if (ultima == null || ultima.equals(marcaSincronizacion)) {
+                return; // Nada nuevo
+            }
+            if (marcaSincronizacion != null && marcaSincronizacion
+                    .isBefore(LocalDateTime.now().minusDays(CopiaBorrada.DIAS_RETENCION))) {
+                // Las marcas de borrado de entonces pueden estar purgadas: solo vale recargar todo
+                cargarCopiasUsuario(user);
+                return;
+            }
+
+            LocalDateTime desde = marcaSincronizacion != null
+                    ? marcaSincronizacion.minusSeconds(MARGEN_SINCRONIZACION_SEGUNDOS)
+                    : null;
+            CompletableFuture<CambiosDesde> peticion = copiaRepository.run(r -> r.cambiosDesde(user.getId(), desde));
+            sincronizacionEnCurso = peticion;
+            peticion.thenAccept(cambios -> {
+                sincronizacionEnCurso = null;
+                marcaSincronizacion = ultima;
+                aplicarCambios(user, cambios);
+            }).exceptionally(ex -> {
+                if (!peticion.isCancelled()) {
+                    sincronizacionEnCurso = null;
+                    sincronizacionFallida();
+                }
+                return null;
+            });
+        }).exceptionally(ex -> {
+            if (!sondeo.isCancelled()) {
+                sincronizacionEnCurso = null;
+                sincronizacionFallida();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Anota un fallo de la sincronización en segundo plano. Se avisa una sola vez, en la
+     * etiqueta de estado y sin diálogos, y los intentos siguientes se espacian doblando la
+     * espera cada vez, hasta {@link #MAX_CICLOS_ESPERA} ciclos.
+     */
+    private void sincronizacionFallida() {
+        if (fallosSincronizacion == 0) {
+            lblSincronizacion.setText("Sin conexión: no se están recibiendo los cambios de otros equipos.");
+        }
+        fallosSincronizacion++;
+        ciclosEnEspera = Math.min(MAX_CICLOS_ESPERA, 1 << Math.min(fallosSincronizacion, 4));
+    }
+
+    /**
+     * Vuelve al intervalo normal y quita el aviso tras una sincronización correcta.
+     */
+    private void sincronizacionCorrecta() {
+        if (fallosSincronizacion > 0) {
+            fallosSincronizacion = 0;
+            ciclosEnEspera = 0;
+            lblSincronizacion.setText("");
+        }
+    }
+
+    /**
+     * Aplica a la lista los cambios obtenidos al sincronizar.
+     * Como no se distingue una inserción de una modificación, el total se vuelve a contar.
+     *
+     * @param user    Usuario cuyas copias se sincronizan.
+     * @param cambios Copias guardadas y borradas desde la última sincronización.
+     */
+    private void aplicarCambios(UsuarioSesion user, CambiosDesde cambios) {
+        if (cambios.isVacio()) {
+            return;
+        }
+        cambios.getGuardadas().forEach(this::aplicarResumen);
+        for (Integer id : cambios.getBorradas()) {
+            int posicion = buscarPorId(id);
+            if (posicion >= 0) {
+                copiasUsuario.remove(posicion);
+            }
+            resultadosServidor.removeIf(r -> r.getId().equals(id));
+        }
+        actualizarTotal();
+
+        copiaRepository.run(r -> r.countByUser(user.getId())).thenAccept(total -> {
+            totalCopias = total;
+            actualizarTotal();
+        }).exceptionally(ex -> {
+            // Se queda el total aproximado, que corregirá el siguiente recuento
+            sincronizacionFallida();
+            return null;
+        });
+    }
+
+    /**
+     * Quita una copia borrada de la lista cargada y de los resultados de búsqueda.
+     *
+     * @param id ID de la copia borrada.
+     */
+    @Override
+    public void copiaBorrada(Integer id) {
+        int posicion = buscarPorId(id);
+        if (posicion >= 0) {
+            copiasUsuario.remove(posicion);
+            totalCopias = Math.max(0, totalCopias - 1);
+        }
+        resultadosServidor.removeIf(r -> r.getId().equals(id));
+        actualizarTotal();
+    }
+
+    /**
+     * Busca una copia en la lista cargada, que está ordenada por ID.
+     *
+     * @param id ID de la copia.
+     * @return Su posición, o (-(punto de inserción) - 1) si no está, como Collections.binarySearch.
+     */
+    private int buscarPorId(Integer id) {
+        return buscarPorId(copiasUsuario, id);
+    }
+
+    /**
+     * Busca una copia por ID en una lista ordenada por ID (la cargada o la filtrada).
+     */
+    private static int buscarPorId(List<CopiaResumen> copias, Integer id) {
+        int bajo = 0;
+        int alto = copias.size() - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int cmp = copias.get(medio).getId().compareTo(id);
+            if (cmp < 0) {
+                bajo = medio + 1;
+            } else if (cmp > 0) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    /**
+     * Actualiza el contador de copias. Sin filtro se muestra el total de la base
+     * de datos; con filtro, el número de filas visibles entre las ya cargadas.
+     */
+    private void actualizarTotal() {
+        if (tabla.getItems() == resultadosServidor) {
+            lblTotalCopias.setText("Resultados: " + resultadosServidor.size()
+                    + (quedanResultadosServidor ? "+" : ""));
+        } else if (txtBuscar == null || txtBuscar.getText() == null || txtBuscar.getText().isBlank()) {
+            lblTotalCopias.setText("Total de copias: " + totalCopias);
+        } else {
+            lblTotalCopias.setText("Total de copias: " + copiasFiltradas.size());
+        }
     }
 
     @FXML
     public void borrar(ActionEvent actionEvent) {
-        Copia seleccionada = tabla.getSelectionModel().getSelectedItem();
+        List<Integer> ids = idsSeleccionados();
+        if (ids.size() > 1) {
+            borrarVarias(ids);
+            return;
+        }
+
+        CopiaResumen seleccionada = tabla.getSelectionModel().getSelectedItem();
         if (seleccionada == null) {
             JavaFXUtil.showModal(
                     Alert.AlertType.INFORMATION,
@@ -223,11 +822,147 @@ public class MainController implements Initializable {
         confirmacion.showAndWait()
                 .filter(boton -> boton == ButtonType.OK)
                 .ifPresent(botonOk -> {
-                    copiaRepository.delete(seleccionada);
-                    cargarCopiasUsuario(simpleSessionService.getActive());
+                    btnBorrar.setDisable(true);
+                    copiaRepository.removeById(seleccionada.getId().longValue())
+                            .whenComplete((borrada, ex) -> {
+                                btnBorrar.setDisable(false);
+                                if (ex != null) {
+                                    JavaFXUtil.showError("Borrar copia", "No se pudo borrar la copia", ex);
+                                    return;
+                                }
+                                // Si ya no existía, también sobra en la tabla
+                                CambiosCopias.publicarBorrada(seleccionada.getId());
+                            });
+                });
+    }
+
+    /**
+     * Borra las copias seleccionadas con una única transacción en la base de datos.
+     *
+     * @param ids IDs de las copias seleccionadas.
+     */
+    private void borrarVarias(List<Integer> ids) {
+        Alert confirmacion = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmacion.setTitle("Confirmar borrado");
+        confirmacion.setHeaderText("¿Seguro que quieres borrar " + ids.size() + " copias?");
+        confirmacion.setContentText("Esta acción no se puede deshacer.");
+        if (confirmacion.showAndWait().filter(boton -> boton == ButtonType.OK).isEmpty()) {
+            return;
+        }
+
+        Integer idUsuario = simpleSessionService.getActive().getId();
+        btnBorrar.setDisable(true);
+        copiaRepository.run(r -> r.borrarVarias(idUsuario, ids))
+                .whenComplete((borradas, ex) -> {
+                    btnBorrar.setDisable(false);
+                    if (ex != null) {
+                        JavaFXUtil.showError("Borrar copias", "No se pudieron borrar las copias", ex);
+                        return;
+                    }
+
+                    Set<Integer> quitar = Set.copyOf(ids);
+                    copiasUsuario.removeIf(c -> quitar.contains(c.getId()));
+                    resultadosServidor.removeIf(c -> quitar.contains(c.getId()));
+                    totalCopias = Math.max(0, totalCopias - borradas);
+                    actualizarTotal();
+                    CambiosCopias.publicarRecargadas();
+
+                    JavaFXUtil.showModal(
+                            Alert.AlertType.INFORMATION,
+                            "Borrar copias",
+                            "Operación realizada",
+                            borradas + " copias borradas."
+                    );
                 });
     }
 
+    /**
+     * Cambia el estado y/o el soporte de todas las copias seleccionadas
+     * con una única transacción en la base de datos.
+     */
+    @FXML
+    public void cambiarVarias(ActionEvent actionEvent) {
+        List<Integer> ids = idsSeleccionados();
+        if (ids.isEmpty()) {
+            JavaFXUtil.showModal(
+                    Alert.AlertType.INFORMATION,
+                    "Cambiar estado/soporte",
+                    "Ninguna copia seleccionada",
+                    "Selecciona una o varias copias en la tabla."
+            );
+            return;
+        }
+
+        ComboBox<String> comboEstado = new ComboBox<>();
+        comboEstado.getItems().addAll(Copia.ESTADOS);
+        comboEstado.setPromptText("Sin cambios");
+        ComboBox<String> comboSoporte = new ComboBox<>();
+        comboSoporte.getItems().addAll(Copia.SOPORTES);
+        comboSoporte.setPromptText("Sin cambios");
+
+        GridPane campos = new GridPane();
+        campos.setHgap(10);
+        campos.setVgap(10);
+        campos.addRow(0, new Label("Estado:"), comboEstado);
+        campos.addRow(1, new Label("Soporte:"), comboSoporte);
+
+        Dialog<ButtonType> dialogo = new Dialog<>();
+        dialogo.setTitle("Cambiar estado/soporte");
+        dialogo.setHeaderText("Cambiar " + ids.size() + " copias");
+        dialogo.getDialogPane().setContent(campos);
+        dialogo.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        if (dialogo.showAndWait().filter(boton -> boton == ButtonType.OK).isEmpty()) {
+            return;
+        }
+
+        String estado = comboEstado.getValue();
+        String soporte = comboSoporte.getValue();
+        if (estado == null && soporte == null) {
+            return; // Nada que cambiar
+        }
+
+        Integer idUsuario = simpleSessionService.getActive().getId();
+        btnCambiarVarias.setDisable(true);
+        copiaRepository.run(r -> r.actualizarVarias(idUsuario, ids, estado, soporte))
+                .whenComplete((actualizadas, ex) -> {
+                    btnCambiarVarias.setDisable(false);
+                    if (ex != null) {
+                        JavaFXUtil.showError("Cambiar estado/soporte", "No se pudieron actualizar las copias", ex);
+                        return;
+                    }
+
+                    Set<Integer> cambiar = Set.copyOf(ids);
+                    copiasUsuario.replaceAll(c -> cambiar.contains(c.getId()) ? conCambios(c, estado, soporte) : c);
+                    resultadosServidor.replaceAll(c -> cambiar.contains(c.getId()) ? conCambios(c, estado, soporte) : c);
+                    CambiosCopias.publicarRecargadas();
+
+                    JavaFXUtil.showModal(
+                            Alert.AlertType.INFORMATION,
+                            "Cambiar estado/soporte",
+                            "Operación realizada",
+                            actualizadas + " copias actualizadas."
+                    );
+                });
+    }
+
+    /**
+     * IDs de las copias seleccionadas en la tabla.
+     */
+    private List<Integer> idsSeleccionados() {
+        return tabla.getSelectionModel().getSelectedItems().stream()
+                .map(CopiaResumen::getId)
+                .toList();
+    }
+
+    /**
+     * Copia de la fila con el nuevo estado y soporte (los null no cambian).
+     */
+    private static CopiaResumen conCambios(CopiaResumen copia, String estado, String soporte) {
+        return new CopiaResumen(copia.getId(), copia.getTitulo(), copia.getGenero(), copia.getAnio(),
+                estado != null ? estado : copia.getEstado(),
+                soporte != null ? soporte : copia.getSoporte());
+    }
+
     @FXML
     public void añadir(ActionEvent actionEvent) {
         var user = simpleSessionService.getActive();
@@ -242,26 +977,18 @@ public class MainController implements Initializable {
             return;
         }
 
+        // Basta el ID del propietario: el repositorio lo enlaza con una referencia al guardar
+        User propietario = new User();
+        propietario.setId(user.getId());
+
         Copia nueva = new Copia();
-        nueva.setUser(user);
+        nueva.setUser(propietario);
 
         try {
-            FXMLLoader loader = new FXMLLoader(
-                    JavaFXUtil.class.getResource("/org/example/retoconjuntoad_di_2/copy-detail-view.fxml")
-            );
-            Parent root = loader.load();
-
-            CopyDetailController controller = loader.getController();
-            controller.setCopia(nueva);
-
-            Stage detailStage = new Stage();
-            detailStage.setTitle("Nueva copia");
-            detailStage.initOwner(JavaFXUtil.getStage());
-            detailStage.initModality(Modality.WINDOW_MODAL);
-            detailStage.setScene(new Scene(root));
-            detailStage.showAndWait();
-
-            cargarCopiasUsuario(simpleSessionService.getActive());
+            Vistas.Vista<CopyDetailController> vista =
+                    Vistas.obtener("/org/example/retoconjuntoad_di_2/copy-detail-view.fxml");
+            vista.getControlador().setCopia(nueva);
+            vista.dialogo("Nueva copia").showAndWait();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -276,7 +1003,7 @@ public class MainController implements Initializable {
 
     @FXML
     public void verDetalle(ActionEvent actionEvent) {
-        Copia seleccionada = tabla.getSelectionModel().getSelectedItem();
+        CopiaResumen seleccionada = tabla.getSelectionModel().getSelectedItem();
         if (seleccionada == null) {
             JavaFXUtil.showModal(
                     Alert.AlertType.INFORMATION,
@@ -287,23 +1014,39 @@ public class MainController implements Initializable {
             return;
         }
 
-        try {
-            FXMLLoader loader = new FXMLLoader(
-                    JavaFXUtil.class.getResource("/org/example/retoconjuntoad_di_2/copy-detail-view.fxml")
-            );
-            Parent root = loader.load();
-
-            CopyDetailController controller = loader.getController();
-            controller.setCopia(seleccionada);
-
-            Stage detailStage = new Stage();
-            detailStage.setTitle("Detalle de copia");
-            detailStage.initOwner(JavaFXUtil.getStage());
-            detailStage.initModality(Modality.WINDOW_MODAL);
-            detailStage.setScene(new Scene(root));
-            detailStage.showAndWait();
+        // La entidad completa solo se carga cuando se abre el detalle.
+        btnDetalle.setDisable(true);
+        copiaRepository.findById(seleccionada.getId().longValue())
+                .whenComplete((copia, ex) -> {
+                    btnDetalle.setDisable(false);
+                    if (ex != null) {
+                        JavaFXUtil.showError("Detalle de copia", "No se pudo cargar la copia", ex);
+                    } else if (copia.isEmpty()) {
+                        JavaFXUtil.showModal(
+                                Alert.AlertType.INFORMATION,
+                                "Detalle de copia",
+                                "La copia ya no existe",
+                                "Es posible que se haya borrado desde otro equipo."
+                        );
+                        CambiosCopias.publicarBorrada(seleccionada.getId());
+                    } else {
+                        abrirDetalle(copia.get());
+                    }
+                });
+    }
 
-            cargarCopiasUsuario(simpleSessionService.getActive());
+    /**
+     * Abre la ventana de detalle para una copia ya cargada.
+     * Los cambios que se hagan en ella llegan a la tabla a través de CambiosCopias.
+     *
+     * @param copia Copia completa a mostrar.
+     */
+    private void abrirDetalle(Copia copia) {
+        try {
+            Vistas.Vista<CopyDetailController> vista =
+                    Vistas.obtener("/org/example/retoconjuntoad_di_2/copy-detail-view.fxml");
+            vista.getControlador().setCopia(copia);
+            vista.dialogo("Detalle de copia").showAndWait();
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -319,24 +1062,154 @@ public class MainController implements Initializable {
     @FXML
     public void añadirPelicula(ActionEvent actionEvent) {
         try {
-            FXMLLoader loader = new FXMLLoader(
-                    JavaFXUtil.class.getResource("/org/example/retoconjuntoad_di_2/pelicula-detail-view.fxml")
+            Vistas.obtener("/org/example/retoconjuntoad_di_2/pelicula-detail-view.fxml")
+                    .dialogo("Nueva película")
+                    .showAndWait();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            JavaFXUtil.showModal(
+                    Alert.AlertType.ERROR,
+                    "Error",
+                    "No se pudo abrir la ventana de película",
+                    e.getMessage()
             );
-            Parent root = loader.load();
+        }
+    }
 
-            Stage stage = new Stage();
-            stage.initOwner(JavaFXUtil.getStage());
-            stage.initModality(Modality.WINDOW_MODAL);
-            stage.setTitle("Nueva película");
-            stage.setScene(new Scene(root));
-            stage.showAndWait();
+    /**
+     * Importa un inventario completo (CSV o JSON) asignando las copias al usuario actual.
+     * La importación se ejecuta en segundo plano mostrando el avance en el contador.
+     */
+    @FXML
+    public void importar(ActionEvent actionEvent) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Importar inventario");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Inventario (CSV, JSON)", "*.csv", "*.json", "*.jsonl"),
+                new FileChooser.ExtensionFilter("Todos los ficheros", "*.*")
+        );
+        File fichero = chooser.showOpenDialog(JavaFXUtil.getStage());
+        if (fichero == null) {
+            return;
+        }
+
+        ImportadorInventario.Formato formato = fichero.getName().toLowerCase().endsWith(".csv")
+                ? ImportadorInventario.Formato.CSV
+                : ImportadorInventario.Formato.JSON;
+        ImportadorInventario importador =
+                new ImportadorInventario(DataProvider.getSessionFactory(), TAMANO_LOTE_IMPORTACION);
+        Integer idUsuario = simpleSessionService.getActive().getId();
+
+        btnImportar.setDisable(true);
+        lblTotalCopias.setText("Importando...");
+        DbExecutor.supplyAsync(() -> importador.importar(fichero.toPath(), formato, idUsuario,
+                        (filas, copias, errores) -> Platform.runLater(() -> lblTotalCopias.setText(
+                                "Importando... " + filas + " filas, " + copias + " copias, " + errores + " errores"))))
+                .whenComplete((resultado, ex) -> {
+                    btnImportar.setDisable(false);
+                    if (ex != null) {
+                        JavaFXUtil.showError("Importar inventario", "No se pudo importar el fichero", ex);
+                    } else {
+                        String detalle = resultado.getDetalleErrores().isEmpty()
+                                ? ""
+                                : "\n\nPrimeros errores:\n" + String.join("\n",
+                                        resultado.getDetalleErrores().subList(0, Math.min(10, resultado.getDetalleErrores().size())));
+                        JavaFXUtil.showModal(
+                                Alert.AlertType.INFORMATION,
+                                "Importar inventario",
+                                "Importación terminada",
+                                resultado + detalle
+                        );
+                    }
+                    CambiosCopias.publicarRecargadas();
+                    cargarCopiasUsuario(simpleSessionService.getActive());
+                });
+    }
+
+    /**
+     * Exporta todas las copias del usuario actual a un fichero CSV o JSON Lines.
+     * Las filas se escriben en streaming desde la base de datos al fichero.
+     */
+    @FXML
+    public void exportar(ActionEvent actionEvent) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exportar colección");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON Lines", "*.jsonl")
+        );
+        File fichero = chooser.showSaveDialog(JavaFXUtil.getStage());
+        if (fichero == null) {
+            return;
+        }
+
+        FormatoExportacion formato = fichero.getName().toLowerCase().endsWith(".csv")
+                ? FormatoExportacion.CSV
+                : FormatoExportacion.JSON_LINES;
+        UsuarioSesion user = simpleSessionService.getActive();
+
+        btnExportar.setDisable(true);
+        copiaRepository.run(r -> {
+                    try (FileChannel canal = FileChannel.open(fichero.toPath(), StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        return r.exportarPorUsuario(user.getId(), formato, canal);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .whenComplete((total, ex) -> {
+                    btnExportar.setDisable(false);
+                    if (ex != null) {
+                        JavaFXUtil.showError("Exportar colección", "No se pudo exportar la colección", ex);
+                        return;
+                    }
+                    JavaFXUtil.showModal(
+                            Alert.AlertType.INFORMATION,
+                            "Exportar colección",
+                            "Exportación terminada",
+                            "Se han exportado " + total + " copias a " + fichero.getName() + "."
+                    );
+                });
+    }
+
+    /**
+     * Abre la ventana de diagnóstico con las métricas de base de datos (solo administradores).
+     */
+    @FXML
+    public void verDiagnostico(ActionEvent actionEvent) {
+        try {
+            Vistas.obtener("/org/example/retoconjuntoad_di_2/diagnostics-view.fxml")
+                    .dialogo("Diagnóstico")
+                    .showAndWait();
 
         } catch (Exception e) {
             e.printStackTrace();
             JavaFXUtil.showModal(
                     Alert.AlertType.ERROR,
                     "Error",
-                    "No se pudo abrir la ventana de película",
+                    "No se pudo abrir la ventana de diagnóstico",
+                    e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * Abre la ventana de estadísticas de la colección.
+     */
+    @FXML
+    public void verEstadisticas(ActionEvent actionEvent) {
+        try {
+            Vistas.obtener("/org/example/retoconjuntoad_di_2/estadisticas-view.fxml")
+                    .dialogo("Estadísticas")
+                    .showAndWait();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            JavaFXUtil.showModal(
+                    Alert.AlertType.ERROR,
+                    "Error",
+                    "No se pudo abrir la ventana de estadísticas",
                     e.getMessage()
             );
         }
@@ -351,6 +1224,13 @@ public class MainController implements Initializable {
                 "Has cerrado la sesión correctamente."
         );
 
+        // Sin sincronizar con el usuario que sale; la vista también la para al dejar de mostrarse
+        sincronizacion.stop();
+        if (sincronizacionEnCurso != null) {
+            sincronizacionEnCurso.cancel(true);
+            sincronizacionEnCurso = null;
+        }
+        sincronizacionCorrecta();
         simpleSessionService.logout();
         JavaFXUtil.setScene("/org/example/retoconjuntoad_di_2/login-view.fxml");
     }
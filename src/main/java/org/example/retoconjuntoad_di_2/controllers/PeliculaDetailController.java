@@ -9,8 +9,10 @@ import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
 import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
+import org.example.retoconjuntoad_di_2.utils.AsyncRepository;
 import org.example.retoconjuntoad_di_2.utils.DataProvider;
 import org.example.retoconjuntoad_di_2.utils.JavaFXUtil;
+import org.example.retoconjuntoad_di_2.utils.Reiniciable;
 
 import java.net.URL;
 import java.time.Year;
@@ -20,7 +22,7 @@ import java.util.ResourceBundle;
  * Controlador para gestionar los detalles de una película.
  * Permite crear y guardar una nueva película en el sistema.
  */
-public class PeliculaDetailController implements Initializable {
+public class PeliculaDetailController implements Initializable, Reiniciable {
 
     @FXML private TextField txtTitulo;     // Campo de texto para ingresar el título de la película.
     @FXML private TextField txtGenero;     // Campo de texto para ingresar el género de la película.
@@ -28,7 +30,7 @@ public class PeliculaDetailController implements Initializable {
     @FXML private TextField txtDirector;   // Campo de texto para ingresar el director de la película.
     @FXML private TextArea txtDescripcion; // Área de texto para ingresar la descripción de la película.
 
-    private PeliculaRepository peliculaRepository; // Repositorio para gestionar las películas.
+    private AsyncRepository<Pelicula, PeliculaRepository> peliculaRepository; // Repositorio asíncrono para gestionar las películas.
     private static final short MIN_ANIO = 1900;     // Año mínimo permitido.
 
     /**
@@ -39,13 +41,26 @@ public class PeliculaDetailController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        peliculaRepository = new PeliculaRepository(DataProvider.getSessionFactory());
+        peliculaRepository = new AsyncRepository<>(new PeliculaRepository(DataProvider.getSessionFactory()));
 
         int anioActual = Year.now().getValue();
         // Establecer texto de ayuda con el rango permitido, por ejemplo "1900 - 2025".
         txtAnio.setPromptText(MIN_ANIO + " - " + anioActual);
     }
 
+    /**
+     * Deja el formulario vacío para dar de alta otra película.
+     */
+    @Override
+    public void reiniciar() {
+        txtTitulo.clear();
+        txtGenero.clear();
+        txtAnio.clear();
+        txtDirector.clear();
+        txtDescripcion.clear();
+        txtTitulo.getScene().getRoot().setDisable(false);
+    }
+
     /**
      * Maneja el evento de guardar una nueva película.
      * Valida los campos obligatorios y guarda la película en el repositorio.
@@ -106,17 +121,24 @@ public class PeliculaDetailController implements Initializable {
         pelicula.setDirector(director);
         pelicula.setDescripcion(descripcion);
 
-        // Guardar la película en el repositorio.
-        peliculaRepository.save(pelicula);
+        // Guardar la película en el repositorio sin bloquear la interfaz.
+        txtTitulo.getScene().getRoot().setDisable(true);
+        peliculaRepository.save(pelicula).whenComplete((guardada, ex) -> {
+            txtTitulo.getScene().getRoot().setDisable(false);
+            if (ex != null) {
+                JavaFXUtil.showError("Película", "No se pudo guardar la película", ex);
+                return;
+            }
 
-        JavaFXUtil.showModal(
-                Alert.AlertType.INFORMATION,
-                "Película creada",
-                "Operación completada",
-                "La nueva película se ha registrado correctamente."
-        );
+            JavaFXUtil.showModal(
+                    Alert.AlertType.INFORMATION,
+                    "Película creada",
+                    "Operación completada",
+                    "La nueva película se ha registrado correctamente."
+            );
 
-        cerrarVentana();
+            cerrarVentana();
+        });
     }
 
     /**
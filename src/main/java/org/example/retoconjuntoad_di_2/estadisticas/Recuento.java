@@ -0,0 +1,20 @@
+package org.example.retoconjuntoad_di_2.estadisticas;
+
+import lombok.Value;
+
+/**
+ * Número de copias de un grupo (un género, un soporte, un estado o un año).
+ */
+@Value
+public class Recuento {
+
+    /**
+     * Valor del grupo, por ejemplo "Drama" o "1994".
+     */
+    String clave;
+
+    /**
+     * Número de copias del grupo.
+     */
+    long total;
+}
@@ -0,0 +1,43 @@
+package org.example.retoconjuntoad_di_2.estadisticas;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Desglose de las copias por género, soporte, estado y año, calculado en la base de datos.
+ */
+@Value
+public class ResumenEstadisticas {
+
+    /**
+     * Número total de copias.
+     */
+    long totalCopias;
+
+    /**
+     * Copias por género de la película, de más a menos.
+     */
+    List<Recuento> porGenero;
+
+    /**
+     * Copias por soporte, de más a menos.
+     */
+    List<Recuento> porSoporte;
+
+    /**
+     * Copias por estado, de más a menos.
+     */
+    List<Recuento> porEstado;
+
+    /**
+     * Copias por año de la película, en orden cronológico.
+     */
+    List<Recuento> porAnio;
+
+    /**
+     * Momento en que se calcularon.
+     */
+    LocalDateTime calculado;
+}
@@ -0,0 +1,121 @@
+package org.example.retoconjuntoad_di_2.estadisticas;
+
+import org.example.retoconjuntoad_di_2.model.copia.CambiosCopias;
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio;
+import org.example.retoconjuntoad_di_2.utils.UnidadDeTrabajo;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estadísticas de copias por género, soporte, estado y año, de un usuario o de toda la base de datos.
+ * Cada desglose es una consulta GROUP BY: a la JVM solo llegan los grupos, nunca las copias.
+ * Los resultados se guardan en caché; se invalidan cuando se guarda o borra una copia desde
+ * este puesto y caducan pasado un tiempo para recoger los cambios hechos desde otros puestos.
+ */
+public class ServicioEstadisticas implements CambiosCopias.Oyente {
+
+    private static final Duration CADUCIDAD = Duration.ofMinutes(1); // Vida de un resultado en caché.
+    private static final int CLAVE_GLOBAL = 0; // Clave de caché de las estadísticas globales (los IDs empiezan en 1).
+    private static final String SIN_DATOS = "Sin datos"; // Grupo de las filas con el valor a null.
+
+    private final SessionFactory sessionFactory; // Fábrica de sesiones de Hibernate.
+    private final Map<Integer, ResumenEstadisticas> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generacion = new AtomicLong(); // Aumenta con cada invalidación.
+
+    /**
+     * Crea el servicio y lo suscribe a los cambios de copias para invalidar la caché.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     */
+    public ServicioEstadisticas(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        CambiosCopias.suscribir(this);
+    }
+
+    /**
+     * Obtiene las estadísticas de un usuario, o las globales, desde la caché si siguen vigentes.
+     * Si mientras se calculan llega una invalidación, el resultado se devuelve pero no se guarda,
+     * porque puede no incluir el cambio que la provocó.
+     *
+     * @param idUsuario ID del usuario, o null para todas las copias.
+     * @return El desglose de las copias.
+     */
+    public ResumenEstadisticas calcular(Integer idUsuario) {
+        int clave = idUsuario != null ? idUsuario : CLAVE_GLOBAL;
+        ResumenEstadisticas actual = cache.get(clave);
+        if (actual != null && actual.getCalculado().plus(CADUCIDAD).isAfter(LocalDateTime.now())) {
+            return actual;
+        }
+        long inicio = generacion.get();
+        ResumenEstadisticas nuevo = consultar(idUsuario);
+        // Comprobación y escritura atómicas: una invalidación posterior aumenta la generación
+        // antes de borrar la entrada, así que o impide guardarla o la borra después.
+        cache.compute(clave, (k, anterior) -> generacion.get() == inicio ? nuevo : anterior);
+        return nuevo;
+    }
+
+    /**
+     * Descarta todas las estadísticas en caché.
+     */
+    public void invalidar() {
+        generacion.incrementAndGet();
+        cache.clear();
+    }
+
+    @Override
+    public void copiaGuardada(Copia copia, boolean nueva) {
+        generacion.incrementAndGet();
+        if (copia.getUser() != null) {
+            cache.remove(copia.getUser().getId());
+        }
+        cache.remove(CLAVE_GLOBAL);
+    }
+
+    @Override
+    public void copiaBorrada(Integer id) {
+        invalidar(); // No se sabe de qué usuario era
+    }
+
+    @Override
+    public void copiasRecargadas() {
+        invalidar();
+    }
+
+    /**
+     * Lanza las cuatro consultas de agregación en una misma sesión.
+     */
+    private ResumenEstadisticas consultar(Integer idUsuario) {
+        return MetricasRepositorio.medir("ServicioEstadisticas.calcular", sessionFactory, () -> {
+            String sufijo = idUsuario != null ? "Usuario" : "";
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                List<Recuento> porGenero = agrupar(session, "Estadisticas.porGenero" + sufijo, idUsuario);
+                List<Recuento> porSoporte = agrupar(session, "Estadisticas.porSoporte" + sufijo, idUsuario);
+                List<Recuento> porEstado = agrupar(session, "Estadisticas.porEstado" + sufijo, idUsuario);
+                List<Recuento> porAnio = agrupar(session, "Estadisticas.porAnio" + sufijo, idUsuario);
+                long total = porSoporte.stream().mapToLong(Recuento::getTotal).sum();
+                return new ResumenEstadisticas(total, porGenero, porSoporte, porEstado, porAnio, LocalDateTime.now());
+            });
+        });
+    }
+
+    private static List<Recuento> agrupar(Session session, String consulta, Integer idUsuario) {
+        Query<Object[]> query = session.createNamedQuery(consulta, Object[].class);
+        if (idUsuario != null) {
+            query.setParameter("userId", idUsuario);
+        }
+        return query.list().stream()
+                .map(fila -> new Recuento(
+                        fila[0] != null ? fila[0].toString() : SIN_DATOS,
+                        ((Number) fila[1]).longValue()))
+                .toList();
+    }
+}
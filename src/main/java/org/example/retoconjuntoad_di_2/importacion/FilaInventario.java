@@ -0,0 +1,19 @@
+package org.example.retoconjuntoad_di_2.importacion;
+
+import lombok.Value;
+
+/**
+ * Fila leída de un fichero de inventario: los datos de la película y de una copia suya.
+ */
+@Value
+public class FilaInventario {
+
+    long numero; // Número de fila en el fichero (empezando en 1), para informar de errores.
+    String titulo;
+    String genero;
+    String anio;
+    String director;
+    String descripcion;
+    String estado;
+    String soporte;
+}
@@ -0,0 +1,365 @@
+package org.example.retoconjuntoad_di_2.importacion;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
+import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.utils.CsvUtil;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Importa inventarios completos de películas y copias desde ficheros CSV o JSON.
+ * <p>
+ * El fichero se lee en streaming, fila a fila, y se inserta mediante una StatelessSession
+ * (sin contexto de persistencia ni comprobación de cambios) con lotes JDBC, confirmando
+ * la transacción cada {@code tamanoLote} filas. Así la memoria usada no depende del número
+ * de copias del fichero, solo del tamaño del catálogo de películas, que se mantiene en memoria
+ * para no duplicar películas con el mismo título y año.
+ * <p>
+ * CSV: primera línea de cabecera con las columnas titulo, genero, anio (o año), director,
+ * descripcion, estado y soporte, en cualquier orden.
+ * JSON: un array de objetos o una secuencia de objetos (JSON Lines) con esos mismos campos.
+ */
+public class ImportadorInventario {
+
+    /**
+     * Formatos de fichero admitidos.
+     */
+    public enum Formato { CSV, JSON }
+
+    private final SessionFactory sessionFactory; // Fábrica de sesiones de Hibernate.
+    private final int tamanoLote;                 // Filas por transacción.
+
+    /**
+     * Constructor del importador.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param tamanoLote     Número de filas que se confirman en cada transacción.
+     */
+    public ImportadorInventario(SessionFactory sessionFactory, int tamanoLote) {
+        this.sessionFactory = sessionFactory;
+        this.tamanoLote = tamanoLote;
+    }
+
+    /**
+     * Importa un fichero de inventario asignando todas las copias al usuario indicado.
+     * Las filas con errores se descartan y se informan en el resultado; un error al
+     * confirmar un lote descarta solo las filas de ese lote.
+     *
+     * @param fichero   Fichero a importar.
+     * @param formato   Formato del fichero.
+     * @param idUsuario ID del usuario propietario de las copias.
+     * @param progreso  Receptor del avance (puede ser null).
+     * @return Resumen de la importación.
+     * @throws IOException Si el fichero no se puede leer o su formato es inválido.
+     */
+    public ResultadoImportacion importar(Path fichero, Formato formato, Integer idUsuario,
+                                         ProgresoImportacion progreso) throws IOException {
+        ResultadoImportacion resultado = new ResultadoImportacion();
+
+        try (LectorInventario lector = formato == Formato.CSV ? new LectorCsv(fichero) : new LectorJson(fichero);
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(tamanoLote);
+
+            User user = session.get(User.class, idUsuario);
+            if (user == null) {
+                throw new IllegalArgumentException("No existe el usuario con ID " + idUsuario);
+            }
+            Map<String, Pelicula> catalogo = cargarCatalogo(session);
+
+            List<String> peliculasDelLote = new ArrayList<>(); // Para deshacerlas si el lote falla.
+            List<Long> filasDelLote = new ArrayList<>();        // Filas con copia insertada en el lote.
+            session.beginTransaction();
+
+            FilaInventario fila;
+            while ((fila = lector.siguiente()) != null) {
+                resultado.filaLeida();
+                try {
+                    String error = validar(fila);
+                    if (error != null) {
+                        resultado.error(fila.getNumero(), error);
+                    } else {
+                        Pelicula pelicula = buscarOCrearPelicula(session, catalogo, fila, peliculasDelLote);
+
+                        Copia copia = new Copia();
+                        copia.setPelicula(pelicula);
+                        copia.setUser(user);
+                        copia.setEstado(fila.getEstado().trim());
+                        copia.setSoporte(fila.getSoporte().trim());
+                        session.insert(copia);
+                        filasDelLote.add(fila.getNumero());
+                    }
+                } catch (RuntimeException e) {
+                    resultado.error(fila.getNumero(), e.getMessage());
+                }
+
+                if (resultado.getFilasLeidas() % tamanoLote == 0) {
+                    confirmarLote(session, resultado, catalogo, peliculasDelLote, filasDelLote);
+                    if (progreso != null) {
+                        progreso.actualizar(resultado.getFilasLeidas(), resultado.getCopiasCreadas(), resultado.getErrores());
+                    }
+                    session.beginTransaction();
+                }
+            }
+
+            confirmarLote(session, resultado, catalogo, peliculasDelLote, filasDelLote);
+            if (progreso != null) {
+                progreso.actualizar(resultado.getFilasLeidas(), resultado.getCopiasCreadas(), resultado.getErrores());
+            }
+        }
+
+        // La StatelessSession no pasa por la caché: se invalida el catálogo cacheado.
+        if (resultado.getPeliculasCreadas() > 0) {
+            sessionFactory.getCache().evictQueryRegion(PeliculaRepository.REGION_CATALOGO);
+        }
+        return resultado;
+    }
+
+    /**
+     * Carga el catálogo actual indexado por título y año para detectar duplicados.
+     */
+    private Map<String, Pelicula> cargarCatalogo(StatelessSession session) {
+        Map<String, Pelicula> catalogo = new HashMap<>();
+        try (ScrollableResults<Pelicula> peliculas = session
+                .createNamedQuery("Pelicula.findAll", Pelicula.class)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (peliculas.next()) {
+                Pelicula pelicula = peliculas.get();
+                catalogo.putIfAbsent(clave(pelicula.getTitulo(), pelicula.getAnio()), pelicula);
+            }
+        }
+        return catalogo;
+    }
+
+    /**
+     * Devuelve la película con el mismo título y año, insertándola si aún no existe.
+     */
+    private Pelicula buscarOCrearPelicula(StatelessSession session, Map<String, Pelicula> catalogo,
+                                          FilaInventario fila, List<String> peliculasDelLote) {
+        Short anio = Short.valueOf(fila.getAnio().trim());
+        String clave = clave(fila.getTitulo(), anio);
+
+        Pelicula pelicula = catalogo.get(clave);
+        if (pelicula == null) {
+            pelicula = new Pelicula();
+            pelicula.setTitulo(fila.getTitulo().trim());
+            pelicula.setGenero(vacioANulo(fila.getGenero()));
+            pelicula.setAnio(anio);
+            pelicula.setDirector(vacioANulo(fila.getDirector()));
+            pelicula.setDescripcion(vacioANulo(fila.getDescripcion()));
+            session.insert(pelicula);
+            catalogo.put(clave, pelicula);
+            peliculasDelLote.add(clave);
+        }
+        return pelicula;
+    }
+
+    /**
+     * Confirma la transacción del lote actual. Si falla, se deshace el lote completo,
+     * se quitan del catálogo las películas creadas en él y se anota un error por cada fila
+     * cuya copia se había insertado, para que copias creadas más errores sume las filas leídas.
+     */
+    private void confirmarLote(StatelessSession session, ResultadoImportacion resultado,
+                               Map<String, Pelicula> catalogo, List<String> peliculasDelLote,
+                               List<Long> filasDelLote) {
+        try {
+            session.getTransaction().commit();
+            resultado.copiasCreadas(filasDelLote.size());
+            for (int i = 0; i < peliculasDelLote.size(); i++) {
+                resultado.peliculaCreada();
+            }
+        } catch (RuntimeException e) {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+            peliculasDelLote.forEach(catalogo::remove);
+            String mensaje = "lote descartado al confirmar: " + e.getMessage();
+            filasDelLote.forEach(fila -> resultado.error(fila, mensaje));
+        }
+        peliculasDelLote.clear();
+        filasDelLote.clear();
+    }
+
+    /**
+     * Comprueba los campos obligatorios de una fila.
+     *
+     * @return El mensaje de error, o null si la fila es válida.
+     */
+    private String validar(FilaInventario fila) {
+        if (estaVacio(fila.getTitulo())) {
+            return "falta el título";
+        }
+        if (estaVacio(fila.getAnio())) {
+            return "falta el año";
+        }
+        try {
+            Short.parseShort(fila.getAnio().trim());
+        } catch (NumberFormatException e) {
+            return "año inválido: " + fila.getAnio();
+        }
+        if (estaVacio(fila.getEstado()) || estaVacio(fila.getSoporte())) {
+            return "faltan el estado o el soporte";
+        }
+        return null;
+    }
+
+    private static String clave(String titulo, Short anio) {
+        return (titulo != null ? titulo.trim().toLowerCase(Locale.ROOT) : "") + '|' + anio;
+    }
+
+    private static boolean estaVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    private static String vacioANulo(String valor) {
+        return estaVacio(valor) ? null : valor.trim();
+    }
+
+    /**
+     * Lector secuencial de filas de inventario.
+     */
+    private interface LectorInventario extends Closeable {
+
+        /**
+         * @return La siguiente fila, o null si no quedan más.
+         */
+        FilaInventario siguiente() throws IOException;
+    }
+
+    /**
+     * Lee un CSV registro a registro usando la cabecera para localizar las columnas.
+     * Un registro ocupa varias líneas cuando un campo entre comillas contiene saltos de línea
+     * (como las descripciones exportadas por CopiaRepository.exportarPorUsuario).
+     * El número de cada fila es el de la línea donde empieza el registro.
+     */
+    private static class LectorCsv implements LectorInventario {
+
+        private final BufferedReader reader;
+        private final Map<String, Integer> columnas = new HashMap<>();
+        private long numero = 0;
+
+        LectorCsv(Path fichero) throws IOException {
+            reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8);
+            String cabecera = reader.readLine();
+            if (cabecera == null) {
+                throw new IOException("El fichero CSV está vacío");
+            }
+            List<String> nombres = CsvUtil.parsearLinea(cabecera.replace("\uFEFF", ""));
+            for (int i = 0; i < nombres.size(); i++) {
+                String nombre = nombres.get(i).trim().toLowerCase(Locale.ROOT);
+                columnas.put(nombre.equals("año") ? "anio" : nombre, i);
+            }
+            if (!columnas.containsKey("titulo")) {
+                throw new IOException("La cabecera del CSV debe incluir la columna titulo");
+            }
+        }
+
+        @Override
+        public FilaInventario siguiente() throws IOException {
+            String linea;
+            do {
+                linea = reader.readLine();
+                if (linea == null) {
+                    return null;
+                }
+                numero++;
+            } while (linea.isBlank());
+            long primeraLinea = numero;
+
+            // Mientras quede un campo entre comillas abierto, el registro sigue en la línea siguiente
+            boolean abiertas = CsvUtil.comillasAbiertas(linea);
+            if (abiertas) {
+                StringBuilder registro = new StringBuilder(linea);
+                String continuacion;
+                while (abiertas && (continuacion = reader.readLine()) != null) {
+                    numero++;
+                    registro.append('\n').append(continuacion);
+                    abiertas ^= CsvUtil.comillasAbiertas(continuacion);
+                }
+                linea = registro.toString(); // Si el fichero acaba con comillas abiertas, se toma lo leído
+            }
+
+            List<String> campos = CsvUtil.parsearLinea(linea);
+            return new FilaInventario(primeraLinea,
+                    campo(campos, "titulo"), campo(campos, "genero"), campo(campos, "anio"),
+                    campo(campos, "director"), campo(campos, "descripcion"),
+                    campo(campos, "estado"), campo(campos, "soporte"));
+        }
+
+        private String campo(List<String> campos, String nombre) {
+            Integer indice = columnas.get(nombre);
+            return indice != null && indice < campos.size() ? campos.get(indice) : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * Lee objetos JSON uno a uno con el parser en streaming de Jackson.
+     */
+    private static class LectorJson implements LectorInventario {
+
+        private final JsonParser parser;
+        private long numero = 0;
+
+        LectorJson(Path fichero) throws IOException {
+            parser = new JsonFactory().createParser(Files.newBufferedReader(fichero, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public FilaInventario siguiente() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken(); // Array de objetos: se recorren sus elementos.
+            }
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Se esperaba un objeto JSON en " + parser.currentLocation());
+            }
+
+            numero++;
+            Map<String, String> valores = new HashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String nombre = parser.currentName().toLowerCase(Locale.ROOT);
+                JsonToken valor = parser.nextToken();
+                if (valor.isStructStart()) {
+                    parser.skipChildren();
+                } else {
+                    valores.put(nombre.equals("año") ? "anio" : nombre, parser.getValueAsString());
+                }
+            }
+            return new FilaInventario(numero,
+                    valores.get("titulo"), valores.get("genero"), valores.get("anio"),
+                    valores.get("director"), valores.get("descripcion"),
+                    valores.get("estado"), valores.get("soporte"));
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.retoconjuntoad_di_2.importacion;
+
+/**
+ * Recibe el avance de una importación tras cada lote confirmado.
+ * Se invoca desde el hilo que realiza la importación, no desde el de JavaFX.
+ */
+@FunctionalInterface
+public interface ProgresoImportacion {
+
+    /**
+     * @param filasLeidas   Filas procesadas hasta el momento.
+     * @param copiasCreadas Copias insertadas hasta el momento.
+     * @param errores       Filas descartadas hasta el momento.
+     */
+    void actualizar(long filasLeidas, long copiasCreadas, long errores);
+}
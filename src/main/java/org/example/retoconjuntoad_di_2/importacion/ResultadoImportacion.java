@@ -0,0 +1,56 @@
+package org.example.retoconjuntoad_di_2.importacion;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado (parcial o final) de una importación de inventario.
+ * Solo se guarda el detalle de los primeros errores para que la memoria no crezca
+ * con el tamaño del fichero; el resto únicamente se cuentan.
+ */
+@Getter
+public class ResultadoImportacion {
+
+    private static final int MAX_ERRORES_DETALLADOS = 1000;
+
+    private long filasLeidas;        // Filas procesadas del fichero.
+    private long peliculasCreadas;   // Películas nuevas insertadas.
+    private long copiasCreadas;      // Copias insertadas.
+    private long errores;            // Filas descartadas por error.
+    private final List<String> detalleErrores = new ArrayList<>();
+
+    void filaLeida() {
+        filasLeidas++;
+    }
+
+    void peliculaCreada() {
+        peliculasCreadas++;
+    }
+
+    void copiasCreadas(long numero) {
+        copiasCreadas += numero;
+    }
+
+    void error(long fila, String mensaje) {
+        errores++;
+        if (detalleErrores.size() < MAX_ERRORES_DETALLADOS) {
+            detalleErrores.add("Fila " + fila + ": " + mensaje);
+        }
+    }
+
+    /**
+     * @return Los errores detallados (como mucho los primeros 1000).
+     */
+    public List<String> getDetalleErrores() {
+        return Collections.unmodifiableList(detalleErrores);
+    }
+
+    @Override
+    public String toString() {
+        return filasLeidas + " filas leídas, " + peliculasCreadas + " películas nuevas, "
+                + copiasCreadas + " copias creadas, " + errores + " errores";
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.retoconjuntoad_di_2.model.copia;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Avisos de copias guardadas o borradas, para que las vistas abiertas se actualicen
+ * sin volver a consultar la base de datos.
+ * Quien guarda o borra una copia publica el cambio cuando la operación ha terminado;
+ * los oyentes se ejecutan en el mismo hilo que publica (el de JavaFX).
+ */
+public class CambiosCopias {
+
+    /**
+     * Receptor de los cambios en las copias.
+     */
+    public interface Oyente {
+
+        /**
+         * Se ha insertado o actualizado una copia.
+         *
+         * @param copia Copia tal como ha quedado en la base de datos.
+         * @param nueva true si la copia se acaba de insertar.
+         */
+        void copiaGuardada(Copia copia, boolean nueva);
+
+        /**
+         * Se ha borrado una copia.
+         *
+         * @param id ID de la copia borrada.
+         */
+        void copiaBorrada(Integer id);
+
+        /**
+         * Han cambiado muchas copias a la vez (importación u operaciones masivas):
+         * lo que se tenga calculado a partir de ellas ya no es válido.
+         */
+        default void copiasRecargadas() {
+        }
+    }
+
+    private static final List<Oyente> oyentes = new CopyOnWriteArrayList<>();
+
+    private CambiosCopias() {}
+
+    public static void suscribir(Oyente oyente) {
+        oyentes.add(oyente);
+    }
+
+    public static void anular(Oyente oyente) {
+        oyentes.remove(oyente);
+    }
+
+    /**
+     * Avisa de que una copia se ha guardado.
+     *
+     * @param copia Copia devuelta por CopiaRepository.save.
+     * @param nueva true si era una inserción.
+     */
+    public static void publicarGuardada(Copia copia, boolean nueva) {
+        for (Oyente oyente : oyentes) {
+            oyente.copiaGuardada(copia, nueva);
+        }
+    }
+
+    /**
+     * Avisa de que una copia se ha borrado.
+     *
+     * @param id ID de la copia borrada.
+     */
+    public static void publicarBorrada(Integer id) {
+        for (Oyente oyente : oyentes) {
+            oyente.copiaBorrada(id);
+        }
+    }
+
+    /**
+     * Avisa de que han cambiado muchas copias a la vez.
+     */
+    public static void publicarRecargadas() {
+        for (Oyente oyente : oyentes) {
+            oyente.copiasRecargadas();
+        }
+    }
+}
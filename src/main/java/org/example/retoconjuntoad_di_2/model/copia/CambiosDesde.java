@@ -0,0 +1,30 @@
+package org.example.retoconjuntoad_di_2.model.copia;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Cambios en las copias de un usuario a partir de una marca de tiempo:
+ * copias insertadas o modificadas (como proyección plana) e IDs de copias borradas.
+ */
+@Value
+public class CambiosDesde {
+
+    /**
+     * Copias insertadas o modificadas, ordenadas por ID.
+     */
+    List<CopiaResumen> guardadas;
+
+    /**
+     * IDs de las copias borradas.
+     */
+    List<Integer> borradas;
+
+    /**
+     * @return true si no hay ningún cambio.
+     */
+    public boolean isVacio() {
+        return guardadas.isEmpty() && borradas.isEmpty();
+    }
+}
@@ -4,20 +4,85 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
 import org.example.retoconjuntoad_di_2.model.user.User;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.generator.EventType;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Clase que representa una copia de una película en el sistema.
  * Cada copia está asociada a una película, un usuario, un estado y un soporte.
  */
 @Entity
-@Table(name = "Copias")
+@NamedQuery(name = "Copia.findAll", query = "from Copia")
+@NamedQuery(name = "Copia.count", query = "select count(c) from Copia c")
+@NamedQuery(name = "Copia.findByUser", query = "from Copia c where c.user = :user")
+@NamedQuery(name = "Copia.countByUser", query = "select count(c) from Copia c where c.user.id = :userId")
+@NamedQuery(name = "Copia.findPageByUser", query =
+        "select new org.example.retoconjuntoad_di_2.model.copia.CopiaResumen(" +
+                "c.id, p.titulo, p.genero, p.anio, c.estado, c.soporte) " +
+                "from Copia c join c.pelicula p " +
+                "where c.user.id = :userId and c.id > :afterId order by c.id")
+@NamedQuery(name = "Copia.ultimaModificacion", query =
+        "select (select max(c.modificado) from Copia c where c.user.id = :userId), " +
+                "(select max(b.borrada) from CopiaBorrada b where b.idUsuario = :userId)")
+@NamedQuery(name = "Copia.cambiosDesde", query =
+        "select new org.example.retoconjuntoad_di_2.model.copia.CopiaResumen(" +
+                "c.id, p.titulo, p.genero, p.anio, c.estado, c.soporte) " +
+                "from Copia c join c.pelicula p " +
+                "where c.user.id = :userId and c.modificado > :desde order by c.id")
+@NamedQuery(name = "Copia.exportarPorUsuario", query =
+        "select c.id, p.titulo, p.genero, p.anio, p.director, p.descripcion, c.estado, c.soporte " +
+                "from Copia c join c.pelicula p where c.user.id = :userId order by c.id")
+@NamedQuery(name = "Copia.borrarPorId", query = "delete from Copia c where c.id = :id")
+@NamedQuery(name = "Copia.borrarPorPelicula", query = "delete from Copia c where c.pelicula.id = :peliculaId")
+@NamedQuery(name = "Copia.borrarPorUsuario", query = "delete from Copia c where c.user.id = :userId")
+@NamedQuery(name = "Copia.borrarVarias", query =
+        "delete from Copia c where c.user.id = :userId and c.id in :ids")
+@NamedQuery(name = "Copia.actualizarVarias", query =
+        "update versioned Copia c set c.estado = coalesce(:estado, c.estado), " +
+                "c.soporte = coalesce(:soporte, c.soporte), c.modificado = local_datetime " +
+                "where c.user.id = :userId and c.id in :ids")
+@NamedQuery(name = "Estadisticas.porGenero", query =
+        "select p.genero, count(c) from Copia c join c.pelicula p group by p.genero order by count(c) desc")
+@NamedQuery(name = "Estadisticas.porGeneroUsuario", query =
+        "select p.genero, count(c) from Copia c join c.pelicula p where c.user.id = :userId " +
+                "group by p.genero order by count(c) desc")
+@NamedQuery(name = "Estadisticas.porSoporte", query =
+        "select c.soporte, count(c) from Copia c group by c.soporte order by count(c) desc")
+@NamedQuery(name = "Estadisticas.porSoporteUsuario", query =
+        "select c.soporte, count(c) from Copia c where c.user.id = :userId " +
+                "group by c.soporte order by count(c) desc")
+@NamedQuery(name = "Estadisticas.porEstado", query =
+        "select c.estado, count(c) from Copia c group by c.estado order by count(c) desc")
+@NamedQuery(name = "Estadisticas.porEstadoUsuario", query =
+        "select c.estado, count(c) from Copia c where c.user.id = :userId " +
+                "group by c.estado order by count(c) desc")
+@NamedQuery(name = "Estadisticas.porAnio", query =
+        "select p.anio, count(c) from Copia c join c.pelicula p group by p.anio order by p.anio")
+@NamedQuery(name = "Estadisticas.porAnioUsuario", query =
+        "select p.anio, count(c) from Copia c join c.pelicula p where c.user.id = :userId " +
+                "group by p.anio order by p.anio")
+@Table(name = "Copias",
+        indexes = @Index(name = "idx_copias_usuario_modificado", columnList = "id_usuario, modificado"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Copia implements Serializable {
 
+    /**
+     * Estados posibles de una copia.
+     */
+    public static final List<String> ESTADOS = List.of("Nueva", "Buena", "Usada", "Deteriorada");
+
+    /**
+     * Soportes posibles de una copia.
+     */
+    public static final List<String> SOPORTES = List.of("DVD", "Blu-ray", "VHS");
+
     /**
      * Identificador único de la copia.
      * Generado automáticamente por la base de datos.
@@ -26,6 +91,16 @@ public class Copia implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
+    /**
+     * Versión de la copia. La comprueban save y delete del repositorio, y la incrementan
+     * también las actualizaciones en bloque ("update versioned").
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
     /**
      * Película asociada a la copia.
      * Relación de muchos a uno con la entidad Pelicula.
@@ -56,6 +131,14 @@ public class Copia implements Serializable {
     @Column(nullable = false)
     private String soporte;
 
+    /**
+     * Momento de la última inserción o modificación, tomado del reloj de la base de datos
+     * para que sea comparable entre puestos. Sirve para sincronizar solo los cambios.
+     */
+    @CurrentTimestamp(event = {EventType.INSERT, EventType.UPDATE})
+    @EqualsAndHashCode.Exclude
+    private LocalDateTime modificado;
+
     /**
      * Representación en forma de cadena de la copia.
      * Incluye el ID, el título de la película, el nombre del usuario, el estado y el soporte.
@@ -0,0 +1,74 @@
+package org.example.retoconjuntoad_di_2.model.copia;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CurrentTimestamp;
+import org.hibernate.generator.EventType;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Marca de una copia borrada ("tombstone").
+ * Al borrar una copia se guarda su ID, su usuario y el momento del borrado, para que
+ * los demás puestos puedan quitarla de su tabla al sincronizar los cambios.
+ */
+@Entity
+@NamedQuery(name = "CopiaBorrada.borradasDesde", query =
+        "select b.id from CopiaBorrada b where b.idUsuario = :userId and b.borrada > :desde")
+@NamedQuery(name = "CopiaBorrada.registrarPorId", query =
+        "insert into CopiaBorrada (id, idUsuario, borrada) " +
+                "select c.id, c.user.id, local_datetime from Copia c where c.id = :id")
+@NamedQuery(name = "CopiaBorrada.registrarPorPelicula", query =
+        "insert into CopiaBorrada (id, idUsuario, borrada) " +
+                "select c.id, c.user.id, local_datetime from Copia c where c.pelicula.id = :peliculaId")
+@NamedQuery(name = "CopiaBorrada.registrarPorUsuario", query =
+        "insert into CopiaBorrada (id, idUsuario, borrada) " +
+                "select c.id, c.user.id, local_datetime from Copia c where c.user.id = :userId")
+@NamedQuery(name = "CopiaBorrada.registrarVarias", query =
+        "insert into CopiaBorrada (id, idUsuario, borrada) " +
+                "select c.id, c.user.id, local_datetime from Copia c where c.user.id = :userId and c.id in :ids")
+@NamedQuery(name = "CopiaBorrada.purgarAnteriores", query =
+        "delete from CopiaBorrada b where b.borrada < :limite")
+@Table(name = "CopiasBorradas",
+        indexes = @Index(name = "idx_borradas_usuario_fecha", columnList = "id_usuario, borrada"))
+@Data
+@NoArgsConstructor
+public class CopiaBorrada implements Serializable {
+
+    /**
+     * Días que se conservan las marcas de borrado. Un puesto que lleve más tiempo
+     * sin sincronizar ya no puede pedir solo los cambios y recarga la lista entera.
+     */
+    public static final int DIAS_RETENCION = 30;
+
+    /**
+     * ID de la copia borrada (los IDs de copia no se reutilizan).
+     */
+    @Id
+    private Integer id;
+
+    /**
+     * ID del usuario propietario de la copia borrada.
+     */
+    @Column(name = "id_usuario", nullable = false)
+    private Integer idUsuario;
+
+    /**
+     * Momento del borrado, tomado del reloj de la base de datos.
+     */
+    @CurrentTimestamp(event = EventType.INSERT)
+    @Column(nullable = false)
+    private LocalDateTime borrada;
+
+    /**
+     * Crea la marca de borrado de una copia.
+     *
+     * @param id        ID de la copia borrada.
+     * @param idUsuario ID de su propietario.
+     */
+    public CopiaBorrada(Integer id, Integer idUsuario) {
+        this.id = id;
+        this.idUsuario = idUsuario;
+    }
+}
@@ -1,12 +1,33 @@
 package org.example.retoconjuntoad_di_2.model.copia;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
 import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.utils.ActualizacionPorId;
+import org.example.retoconjuntoad_di_2.utils.ConflictoConcurrenciaException;
+import org.example.retoconjuntoad_di_2.utils.CsvUtil;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio;
 import org.example.retoconjuntoad_di_2.utils.Repository;
-import org.hibernate.Session;
+import org.example.retoconjuntoad_di_2.utils.UnidadDeTrabajo;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,6 +36,9 @@ import java.util.Optional;
  */
 public class CopiaRepository implements Repository<Copia> {
 
+    private static final int FILAS_POR_FETCH = 1000; // Filas que el driver trae en cada viaje al exportar.
+    private static final int IDS_POR_SENTENCIA = 1000; // Tamaño máximo de la lista IN en las operaciones masivas.
+
     private final SessionFactory sessionFactory; // Fábrica de sesiones de Hibernate.
 
     /**
@@ -28,45 +52,141 @@ public class CopiaRepository implements Repository<Copia> {
 
     /**
      * Guarda una copia en la base de datos.
-     * Si la copia no tiene ID, se inserta como nueva; de lo contrario, se actualiza.
+     * Si la copia no tiene ID, se inserta como nueva; de lo contrario, se actualiza
+     * comprobando que nadie la ha modificado desde que se cargó (bloqueo optimista).
      *
      * @param entity Copia a guardar.
-     * @return La copia gestionada (persistida o actualizada).
+     * @return La copia gestionada (persistida o actualizada), con su nueva versión.
+     * @throws ConflictoConcurrenciaException Si otro usuario la ha modificado o borrado entretanto.
      */
     @Override
     public Copia save(Copia entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-
-            Copia managed;
-            if (entity.getId() == null) {
-                // Nueva copia -> INSERT
-                session.persist(entity);
-                managed = entity;
-            } else {
-                // Copia ya existente -> UPDATE
-                managed = session.merge(entity);
+        return MetricasRepositorio.medir("CopiaRepository.save", sessionFactory, () -> {
+            try {
+                return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                    Copia managed;
+                    if (entity.getId() == null) {
+                        // Nueva copia -> INSERT
+                        // Del usuario solo hace falta la clave ajena: basta una referencia sin cargarlo.
+                        entity.setUser(session.getReference(User.class, entity.getUser().getId()));
+                        session.persist(entity);
+                        managed = entity;
+                    } else {
+                        // Copia ya existente -> UPDATE ... WHERE id = ? AND version = ?
+                        managed = session.merge(entity);
+                    }
+                    return managed;
+                });
+            } catch (RuntimeException e) {
+                throw traducirConflicto(entity, e);
             }
-
-            session.getTransaction().commit();
-            return managed;
-        }
+        });
     }
 
     /**
      * Elimina una copia de la base de datos.
+     * En la misma transacción se guarda su marca de borrado para la sincronización de cambios.
      *
      * @param entity Copia a eliminar.
      * @return Un Optional que contiene la copia eliminada.
+     * @throws ConflictoConcurrenciaException Si otro usuario la ha modificado o borrado entretanto.
      */
     @Override
     public Optional<Copia> delete(Copia entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            session.remove(entity);
-            session.getTransaction().commit();
-            return Optional.of(entity);
+        return MetricasRepositorio.medir("CopiaRepository.delete", sessionFactory, () -> {
+            try {
+                return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                    session.remove(entity);
+                    session.persist(new CopiaBorrada(entity.getId(), entity.getUser().getId()));
+                    return Optional.of(entity);
+                });
+            } catch (RuntimeException e) {
+                throw traducirConflicto(entity, e);
+            }
+        });
+    }
+
+    /**
+     * Borra varias copias de un usuario con sentencias DELETE por conjuntos, sin cargarlas.
+     * Todo va en una única transacción: primero se insertan sus marcas de borrado con un
+     * INSERT ... SELECT y después se borran, en bloques de como mucho 1000 IDs por sentencia.
+     * Los IDs que no existan o no sean del usuario se ignoran.
+     *
+     * @param idUsuario ID del propietario de las copias.
+     * @param ids       IDs de las copias a borrar.
+     * @return Número de copias borradas.
+     */
+    public int borrarVarias(Integer idUsuario, Collection<Integer> ids) {
+        return MetricasRepositorio.medir("CopiaRepository.borrarVarias", sessionFactory, () -> {
+            // Se puede repetir entero: si choca con otra transacción (interbloqueo) se reintenta
+            return UnidadDeTrabajo.ejecutar(sessionFactory, session -> {
+                int borradas = 0;
+                for (List<Integer> bloque : enBloques(ids)) {
+                    session.createNamedMutationQuery("CopiaBorrada.registrarVarias")
+                            .setParameter("userId", idUsuario)
+                            .setParameterList("ids", bloque)
+                            .executeUpdate();
+                    borradas += session.createNamedMutationQuery("Copia.borrarVarias")
+                            .setParameter("userId", idUsuario)
+                            .setParameterList("ids", bloque)
+                            .executeUpdate();
+                }
+                return borradas;
+            });
+        });
+    }
+
+    /**
+     * Cambia el estado y/o el soporte de varias copias de un usuario con sentencias UPDATE
+     * por conjuntos, sin cargarlas, en una única transacción. Cada fila actualizada
+     * incrementa su versión y su marca de modificación, así que las ediciones abiertas
+     * en otros puestos detectarán el conflicto y la sincronización recogerá el cambio.
+     *
+     * @param idUsuario ID del propietario de las copias.
+     * @param ids       IDs de las copias a actualizar.
+     * @param estado    Nuevo estado, o null para no cambiarlo.
+     * @param soporte   Nuevo soporte, o null para no cambiarlo.
+     * @return Número de copias actualizadas.
+     */
+    public int actualizarVarias(Integer idUsuario, Collection<Integer> ids, String estado, String soporte) {
+        return MetricasRepositorio.medir("CopiaRepository.actualizarVarias", sessionFactory, () -> {
+            // Se puede repetir entero: si choca con otra transacción (interbloqueo) se reintenta
+            return UnidadDeTrabajo.ejecutar(sessionFactory, session -> {
+                int actualizadas = 0;
+                for (List<Integer> bloque : enBloques(ids)) {
+                    actualizadas += session.createNamedMutationQuery("Copia.actualizarVarias")
+                            .setParameter("estado", estado, String.class)
+                            .setParameter("soporte", soporte, String.class)
+                            .setParameter("userId", idUsuario)
+                            .setParameterList("ids", bloque)
+                            .executeUpdate();
+                }
+                return actualizadas;
+            });
+        });
+    }
+
+    /**
+     * Parte los IDs en bloques para acotar el tamaño de cada sentencia.
+     */
+    private static List<List<Integer>> enBloques(Collection<Integer> ids) {
+        List<Integer> lista = List.copyOf(ids);
+        List<List<Integer>> bloques = new ArrayList<>();
+        for (int i = 0; i < lista.size(); i += IDS_POR_SENTENCIA) {
+            bloques.add(lista.subList(i, Math.min(i + IDS_POR_SENTENCIA, lista.size())));
         }
+        return bloques;
+    }
+
+    /**
+     * Convierte los errores de versión de Hibernate en ConflictoConcurrenciaException.
+     */
+    private static RuntimeException traducirConflicto(Copia entity, RuntimeException e) {
+        if (ConflictoConcurrenciaException.esConflicto(e)) {
+            return new ConflictoConcurrenciaException(
+                    "La copia " + entity.getId() + " ha sido modificada o borrada por otro usuario.", e);
+        }
+        return e;
     }
 
     /**
@@ -77,9 +197,58 @@ public class CopiaRepository implements Repository<Copia> {
      */
     @Override
     public Optional<Copia> deleteById(Long id) {
-        Optional<Copia> copia = findById(id);
-        copia.ifPresent(this::delete);
-        return copia;
+        return MetricasRepositorio.medir("CopiaRepository.deleteById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                Copia copia = session.find(Copia.class, id.intValue());
+                if (copia != null) {
+                    session.remove(copia);
+                    session.persist(new CopiaBorrada(copia.getId(), copia.getUser().getId()));
+                }
+                return Optional.ofNullable(copia);
+            });
+        });
+    }
+
+    /**
+     * Elimina una copia por su ID sin cargarla: guarda su marca de borrado con un
+     * INSERT ... SELECT y la borra con un DELETE, en la misma transacción.
+     *
+     * @param id ID de la copia a eliminar.
+     * @return true si la copia existía.
+     */
+    @Override
+    public boolean removeById(Long id) {
+        return MetricasRepositorio.medir("CopiaRepository.removeById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                session.createNamedMutationQuery("CopiaBorrada.registrarPorId")
+                        .setParameter("id", id.intValue())
+                        .executeUpdate();
+                int borradas = session.createNamedMutationQuery("Copia.borrarPorId")
+                        .setParameter("id", id.intValue())
+                        .executeUpdate();
+                return borradas > 0;
+            });
+        });
+    }
+
+    /**
+     * Actualiza campos de una copia por su ID con un único UPDATE, sin cargarla.
+     * Se incrementa su versión y su marca de modificación para la sincronización.
+     *
+     * @param id      ID de la copia.
+     * @param cambios Nuevo valor de cada campo, por nombre de atributo (p.ej. "estado").
+     * @return Número de copias actualizadas (0 si no existe).
+     * @throws IllegalArgumentException Si algún campo no existe o no se puede actualizar.
+     */
+    @Override
+    public int updateById(Long id, Map<String, ?> cambios) {
+        return MetricasRepositorio.medir("CopiaRepository.updateById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                int actualizadas = ActualizacionPorId.ejecutar(session, Copia.class, id.intValue(), cambios,
+                        "e.modificado = local_datetime");
+                return actualizadas;
+            });
+        });
     }
 
     /**
@@ -90,11 +259,13 @@ public class CopiaRepository implements Repository<Copia> {
      */
     @Override
     public Optional<Copia> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
-            return Optional.ofNullable(
-                    session.byId(Copia.class).load(id.intValue())
-            );
-        }
+        return MetricasRepositorio.medir("CopiaRepository.findById", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return Optional.ofNullable(
+                        session.byId(Copia.class).load(id.intValue())
+                );
+            });
+        });
     }
 
     /**
@@ -104,9 +275,11 @@ public class CopiaRepository implements Repository<Copia> {
      */
     @Override
     public List<Copia> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("from Copia", Copia.class).list();
-        }
+        return MetricasRepositorio.medir("CopiaRepository.findAll", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return session.createNamedQuery("Copia.findAll", Copia.class).list();
+            });
+        });
     }
 
     /**
@@ -116,11 +289,11 @@ public class CopiaRepository implements Repository<Copia> {
      */
     @Override
     public Long count() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
-                    "select count(c) from Copia c", Long.class
-            ).getSingleResult();
-        }
+        return MetricasRepositorio.medir("CopiaRepository.count", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return session.createNamedQuery("Copia.count", Long.class).getSingleResult();
+            });
+        });
     }
 
     /**
@@ -130,13 +303,274 @@ public class CopiaRepository implements Repository<Copia> {
      * @return Una lista con las copias del usuario.
      */
     public List<Copia> findByUser(User user) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<Copia> query = session.createQuery(
-                    "from Copia c where c.user = :user", Copia.class
-            );
-            query.setParameter("user", user);
-            return query.list();
-        }
+        return MetricasRepositorio.medir("CopiaRepository.findByUser", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                Query<Copia> query = session.createNamedQuery("Copia.findByUser", Copia.class);
+                query.setParameter("user", user);
+                return query.list();
+            });
+        });
     }
 
+    /**
+     * Obtiene una página de copias de un usuario usando paginación por clave (keyset).
+     * En lugar de OFFSET, se filtra por el último ID ya cargado, de modo que el coste
+     * de cada página es constante independientemente de lo avanzada que esté.
+     * Se devuelve una proyección plana construida en una única consulta, sin cargar
+     * las entidades Pelicula y User ni sus colecciones.
+     *
+     * @param idUsuario ID del usuario cuyas copias se desean obtener.
+     * @param afterId  Último ID de copia ya cargado, o null para obtener la primera página.
+     * @param pageSize Número máximo de copias a devolver.
+     * @return Una lista con, como mucho, pageSize filas ordenadas por ID ascendente.
+     */
+    public List<CopiaResumen> findPageByUser(Integer idUsuario, Integer afterId, int pageSize) {
+        return MetricasRepositorio.medir("CopiaRepository.findPageByUser", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                Query<CopiaResumen> query = session.createNamedQuery("Copia.findPageByUser", CopiaResumen.class);
+                query.setParameter("userId", idUsuario);
+                query.setParameter("afterId", afterId != null ? afterId : 0);
+                query.setMaxResults(pageSize);
+                return query.list();
+            });
+        });
+    }
+
+    /**
+     * Comprobación barata de si hay cambios: devuelve la marca de tiempo del último cambio
+     * (inserción, modificación o borrado) en las copias del usuario, con una sola consulta
+     * resuelta sobre los índices (id_usuario, modificado) e (id_usuario, borrada).
+     *
+     * @param idUsuario ID del usuario cuyas copias se comprueban.
+     * @return Momento del último cambio, o null si el usuario nunca ha tenido copias.
+     */
+    public LocalDateTime ultimaModificacion(Integer idUsuario) {
+        return MetricasRepositorio.medir("CopiaRepository.ultimaModificacion", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                Object[] marcas = session.createNamedQuery("Copia.ultimaModificacion", Object[].class)
+                        .setParameter("userId", idUsuario)
+                        .getSingleResult();
+                LocalDateTime copias = (LocalDateTime) marcas[0];
+                LocalDateTime borradas = (LocalDateTime) marcas[1];
+                if (copias == null || borradas != null && borradas.isAfter(copias)) {
+                    return borradas;
+                }
+                return copias;
+            });
+        });
+    }
+
+    /**
+     * Obtiene los cambios en las copias del usuario posteriores a una marca de tiempo:
+     * las copias insertadas o modificadas y los IDs de las borradas.
+     *
+     * @param idUsuario ID del usuario cuyas copias se sincronizan.
+     * @param desde Marca de tiempo (exclusiva), o null para obtener todo.
+     * @return Los cambios encontrados.
+     */
+    public CambiosDesde cambiosDesde(Integer idUsuario, LocalDateTime desde) {
+        return MetricasRepositorio.medir("CopiaRepository.cambiosDesde", sessionFactory, () -> {
+            LocalDateTime marca = desde != null ? desde : LocalDateTime.of(1970, 1, 1, 0, 0);
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                List<CopiaResumen> guardadas = session.createNamedQuery("Copia.cambiosDesde", CopiaResumen.class)
+                        .setParameter("userId", idUsuario)
+                        .setParameter("desde", marca)
+                        .list();
+                List<Integer> borradas = session.createNamedQuery("CopiaBorrada.borradasDesde", Integer.class)
+                        .setParameter("userId", idUsuario)
+                        .setParameter("desde", marca)
+                        .list();
+                return new CambiosDesde(guardadas, borradas);
+            });
+        });
+    }
+
+    /**
+     * Borra las marcas de borrado con más de {@link CopiaBorrada#DIAS_RETENCION} días,
+     * con una única sentencia DELETE, para que la tabla no crezca sin límite.
+     *
+     * @return Número de marcas borradas.
+     */
+    public int purgarBorradas() {
+        return MetricasRepositorio.medir("CopiaRepository.purgarBorradas", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                return session.createNamedMutationQuery("CopiaBorrada.purgarAnteriores")
+                        .setParameter("limite", LocalDateTime.now().minusDays(CopiaBorrada.DIAS_RETENCION))
+                        .executeUpdate();
+            });
+        });
+    }
+
+    /**
+     * Busca copias de un usuario cuya película contenga el texto en el título, el director
+     * o la descripción, usando el índice FULLTEXT de películas. Los resultados se ordenan
+     * por relevancia y se paginan por clave (relevancia, ID): cada página continúa tras la
+     * última fila de la anterior, sin que MySQL tenga que recorrer y descartar las ya vistas.
+     * Si el texto no deja ninguna palabra indexable (p.ej. "la"), se busca en el título con LIKE.
+     *
+     * @param idUsuario  ID del usuario cuyas copias se buscan.
+     * @param texto      Texto a buscar.
+     * @param relevancia Relevancia de la última copia de la página anterior (null para la primera).
+     * @param ultimoId   ID de la última copia de la página anterior (null para la primera).
+     * @param tamano     Número de resultados por página.
+     * @return Las copias de la página pedida, de más a menos relevante.
+     */
+    public PaginaBusqueda buscarTexto(Integer idUsuario, String texto, Double relevancia, Integer ultimoId, int tamano) {
+        return MetricasRepositorio.medir("CopiaRepository.buscarTexto", sessionFactory, () -> {
+            String expresion = PeliculaRepository.expresionTextoCompleto(texto);
+            String patron = PeliculaRepository.patronTitulo(texto);
+            if (patron.isEmpty()) {
+                return new PaginaBusqueda(List.of(), null, null);
+            }
+            // Sin palabras indexables la relevancia es 0 para todas y el orden queda por ID
+            String puntuacion = expresion.isEmpty()
+                    ? "0"
+                    : "match(p.titulo, p.director, p.descripcion) against (:texto in boolean mode)";
+            String coincide = expresion.isEmpty()
+                    ? "p.titulo like :patron escape '!'"
+                    : puntuacion;
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                NativeQuery<Object[]> query = session.createNativeQuery(
+                                "select c.id, p.titulo, p.genero, p.`año`, c.estado, c.soporte, " + puntuacion + " " +
+                                        "from Copias c join Peliculas p on p.id = c.id_pelicula " +
+                                        "where c.id_usuario = :userId and " + coincide + " " +
+                                        (ultimoId != null
+                                                ? "and (" + puntuacion + " < :relevancia " +
+                                                "or (" + puntuacion + " = :relevancia and c.id > :ultimoId)) "
+                                                : "") +
+                                        "order by " + puntuacion + " desc, c.id " +
+                                        "limit :limite",
+                                Object[].class)
+                        .setParameter("userId", idUsuario)
+                        .setParameter("limite", tamano);
+                if (expresion.isEmpty()) {
+                    query.setParameter("patron", patron);
+                } else {
+                    query.setParameter("texto", expresion);
+                }
+                if (ultimoId != null) {
+                    query.setParameter("relevancia", relevancia)
+                            .setParameter("ultimoId", ultimoId);
+                }
+                List<Object[]> filas = query.list();
+                List<CopiaResumen> copias = filas.stream()
+                        .map(f -> new CopiaResumen(
+                                ((Number) f[0]).intValue(),
+                                (String) f[1],
+                                (String) f[2],
+                                f[3] != null ? ((Number) f[3]).shortValue() : null,
+                                (String) f[4],
+                                (String) f[5]))
+                        .toList();
+                if (filas.isEmpty()) {
+                    return new PaginaBusqueda(copias, null, null);
+                }
+                Object[] ultima = filas.get(filas.size() - 1);
+                return new PaginaBusqueda(copias, ((Number) ultima[6]).doubleValue(), ((Number) ultima[0]).intValue());
+            });
+        });
+    }
+
+    /**
+     * Cuenta el número de copias asociadas a un usuario específico.
+     *
+     * @param idUsuario ID del usuario cuyas copias se desean contar.
+     * @return El número de copias del usuario.
+     */
+    public Long countByUser(Integer idUsuario) {
+        return MetricasRepositorio.medir("CopiaRepository.countByUser", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                Query<Long> query = session.createNamedQuery("Copia.countByUser", Long.class);
+                query.setParameter("userId", idUsuario);
+                return query.getSingleResult();
+            });
+        });
+    }
+
+    /**
+     * Exporta todas las copias de un usuario escribiéndolas directamente en un canal.
+     * Se recorre un cursor de solo avance sobre una proyección de columnas, que no carga
+     * entidades en la sesión, de modo que la memoria usada no depende del número de copias
+     * exportadas. La consulta va por una sesión de solo lectura (y su pool, si lo hay).
+     * El canal no se cierra; es responsabilidad de quien lo abre.
+     *
+     * @param idUsuario ID del usuario cuyas copias se exportan.
+     * @param formato Formato de salida.
+     * @param canal   Canal donde se escribe la exportación.
+     * @return Número de copias exportadas.
+     * @throws IOException Si falla la escritura en el canal.
+     */
+    public long exportarPorUsuario(Integer idUsuario, FormatoExportacion formato, WritableByteChannel canal) throws IOException {
+        return MetricasRepositorio.medir("CopiaRepository.exportarPorUsuario", sessionFactory, () -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), 64 * 1024);
+            try {
+                return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                    try (ScrollableResults<Object[]> filas = session.createNamedQuery("Copia.exportarPorUsuario", Object[].class)
+                            .setParameter("userId", idUsuario)
+                            .setFetchSize(FILAS_POR_FETCH)
+                            .scroll(ScrollMode.FORWARD_ONLY)) {
+                        return escribirExportacion(filas, formato, writer);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e); // Trabajo no admite excepciones comprobadas
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    /**
+     * Escribe cada fila del cursor de exportación en el formato pedido.
+     *
+     * @return Número de filas escritas.
+     */
+    private static long escribirExportacion(ScrollableResults<Object[]> filas, FormatoExportacion formato,
+                                            Writer writer) throws IOException {
+        JsonGenerator json = null;
+        if (formato == FormatoExportacion.CSV) {
+            writer.write("id,titulo,genero,anio,director,descripcion,estado,soporte\n");
+        } else {
+            json = new JsonFactory().createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null); // Cada objeto va en su propia línea
+        }
+
+        long total = 0;
+        while (filas.next()) {
+            Object[] fila = filas.get();
+            if (json == null) {
+                for (int i = 0; i < fila.length; i++) {
+                    if (i > 0) {
+                        writer.write(',');
+                    }
+                    writer.write(CsvUtil.escapar(fila[i] != null ? fila[i].toString() : null));
+                }
+                writer.write('\n');
+            } else {
+                json.writeStartObject();
+                json.writeNumberField("id", (Integer) fila[0]);
+                json.writeStringField("titulo", (String) fila[1]);
+                json.writeStringField("genero", (String) fila[2]);
+                if (fila[3] != null) {
+                    json.writeNumberField("anio", (Short) fila[3]);
+                } else {
+                    json.writeNullField("anio");
+                }
+                json.writeStringField("director", (String) fila[4]);
+                json.writeStringField("descripcion", (String) fila[5]);
+                json.writeStringField("estado", (String) fila[6]);
+                json.writeStringField("soporte", (String) fila[7]);
+                json.writeEndObject();
+                json.writeRaw('\n');
+            }
+            total++;
+        }
+
+        if (json != null) {
+            json.flush();
+        }
+        writer.flush();
+        return total;
+    }
 }
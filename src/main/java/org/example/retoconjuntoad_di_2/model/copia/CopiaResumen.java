@@ -0,0 +1,61 @@
+package org.example.retoconjuntoad_di_2.model.copia;
+
+import lombok.Value;
+
+import java.io.Serializable;
+
+/**
+ * Proyección plana de una copia para mostrarla en la tabla principal.
+ * Contiene solo los datos visibles en el listado, sin cargar las entidades
+ * Pelicula y User completas ni sus colecciones.
+ */
+@Value
+public class CopiaResumen implements Serializable {
+
+    /**
+     * Identificador de la copia.
+     */
+    Integer id;
+
+    /**
+     * Título de la película asociada.
+     */
+    String titulo;
+
+    /**
+     * Género de la película asociada.
+     */
+    String genero;
+
+    /**
+     * Año de lanzamiento de la película asociada.
+     */
+    Short anio;
+
+    /**
+     * Estado de la copia.
+     */
+    String estado;
+
+    /**
+     * Soporte físico de la copia.
+     */
+    String soporte;
+
+    /**
+     * Crea el resumen de una copia ya cargada, con su película.
+     *
+     * @param copia Copia completa.
+     * @return Resumen con los datos que muestra la tabla.
+     */
+    public static CopiaResumen de(Copia copia) {
+        return new CopiaResumen(
+                copia.getId(),
+                copia.getPelicula().getTitulo(),
+                copia.getPelicula().getGenero(),
+                copia.getPelicula().getAnio(),
+                copia.getEstado(),
+                copia.getSoporte()
+        );
+    }
+}
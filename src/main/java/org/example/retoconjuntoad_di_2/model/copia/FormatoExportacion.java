@@ -0,0 +1,17 @@
+package org.example.retoconjuntoad_di_2.model.copia;
+
+/**
+ * Formatos disponibles para exportar la colección de un usuario.
+ */
+public enum FormatoExportacion {
+
+    /**
+     * CSV con cabecera, compatible con la importación de inventario.
+     */
+    CSV,
+
+    /**
+     * Un objeto JSON por línea (JSON Lines).
+     */
+    JSON_LINES
+}
@@ -0,0 +1,28 @@
+package org.example.retoconjuntoad_di_2.model.copia;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Página de resultados de la búsqueda de texto completo, junto con la clave de su
+ * última fila (relevancia e ID), desde la que se pide la página siguiente.
+ */
+@Value
+public class PaginaBusqueda {
+
+    /**
+     * Copias de la página, de más a menos relevante y, a igual relevancia, por ID.
+     */
+    List<CopiaResumen> copias;
+
+    /**
+     * Relevancia de la última copia de la página (null si la página está vacía).
+     */
+    Double relevancia;
+
+    /**
+     * ID de la última copia de la página (null si la página está vacía).
+     */
+    Integer ultimoId;
+}
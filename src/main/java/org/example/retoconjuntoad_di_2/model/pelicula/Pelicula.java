@@ -3,6 +3,9 @@ package org.example.retoconjuntoad_di_2.model.pelicula;
 import jakarta.persistence.*;
 import lombok.*;
 import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -11,9 +14,15 @@ import java.util.List;
 /**
  * Clase que representa una película en el sistema.
  * Contiene información sobre el título, género, año, descripción, director y las copias asociadas.
+ * El catálogo apenas cambia, por lo que se guarda en la caché de segundo nivel.
  */
 @Entity
+@NamedQuery(name = "Pelicula.findAll", query = "from Pelicula")
+@NamedQuery(name = "Pelicula.count", query = "select count(p) from Pelicula p")
+@NamedQuery(name = "Pelicula.borrarPorId", query = "delete from Pelicula p where p.id = :id")
 @Table(name = "Peliculas")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -27,6 +36,16 @@ public class Pelicula implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
+    /**
+     * Versión para el bloqueo optimista. Si dos administradores editan la misma película,
+     * el segundo en guardar recibe un conflicto en lugar de pisar los cambios del primero.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
     /**
      * Título de la película.
      */
@@ -58,8 +77,12 @@ public class Pelicula implements Serializable {
      * Lista de copias asociadas a la película.
      * Relación de uno a muchos con la entidad Copia.
      * Las operaciones en cascada se aplican a todas las copias asociadas.
+     * Se carga de forma perezosa y se excluye de equals/hashCode/toString para no
+     * arrastrar todas las copias al cargar la entidad.
      */
-    @OneToMany(cascade = {CascadeType.ALL}, mappedBy = "pelicula", fetch = FetchType.EAGER)
+    @OneToMany(cascade = {CascadeType.ALL}, mappedBy = "pelicula", fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Copia> copias = new ArrayList<>();
 
     /**
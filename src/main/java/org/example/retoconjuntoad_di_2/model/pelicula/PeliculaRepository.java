@@ -1,12 +1,18 @@
 package org.example.retoconjuntoad_di_2.model.pelicula;
 
-import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.utils.ActualizacionPorId;
+import org.example.retoconjuntoad_di_2.utils.ConflictoConcurrenciaException;
+import org.example.retoconjuntoad_di_2.utils.EstadisticasCache;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio;
 import org.example.retoconjuntoad_di_2.utils.Repository;
+import org.example.retoconjuntoad_di_2.utils.UnidadDeTrabajo;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repositorio para gestionar las operaciones CRUD de la entidad Pelicula.
@@ -14,6 +20,30 @@ import java.util.Optional;
  */
 public class PeliculaRepository implements Repository<Pelicula> {
 
+    /**
+     * Región de la caché de consultas donde se guardan las consultas del catálogo.
+     */
+    public static final String REGION_CATALOGO = "catalogo-peliculas";
+
+    /**
+     * Nombre del índice FULLTEXT de MySQL sobre título, director y descripción.
+     */
+    public static final String INDICE_TEXTO_COMPLETO = "ft_peliculas_texto";
+
+    /**
+     * Longitud mínima de palabra que indexa InnoDB (innodb_ft_min_token_size por defecto).
+     */
+    private static final int LONGITUD_MINIMA_PALABRA = 3;
+
+    /**
+     * Lista de palabras vacías por defecto de InnoDB: nunca se indexan, así que exigirlas
+     * con + deja la búsqueda sin resultados.
+     */
+    private static final Set<String> PALABRAS_VACIAS = Set.of(
+            "a", "about", "an", "are", "as", "at", "be", "by", "com", "de", "en", "for", "from",
+            "how", "i", "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to",
+            "was", "what", "when", "where", "who", "will", "with", "und", "www");
+
     private final SessionFactory sessionFactory; // Fábrica de sesiones de Hibernate.
 
     /**
@@ -34,12 +64,24 @@ public class PeliculaRepository implements Repository<Pelicula> {
      */
     @Override
     public Pelicula save(Pelicula entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            session.persist(entity);
-            session.getTransaction().commit();
-            return entity;
-        }
+        return MetricasRepositorio.medir("PeliculaRepository.save", sessionFactory, () -> {
+            try {
+                return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                    Pelicula guardada;
+                    if (entity.getId() == null) {
+                        session.persist(entity);
+                        guardada = entity;
+                    } else {
+                        // UPDATE con comprobación de versión (bloqueo optimista)
+                        guardada = session.merge(entity);
+                    }
+                    invalidarCatalogoAlConfirmar(session, guardada.getId());
+                    return guardada;
+                });
+            } catch (RuntimeException e) {
+                throw traducirConflicto(entity, e);
+            }
+        });
     }
 
     /**
@@ -50,12 +92,41 @@ public class PeliculaRepository implements Repository<Pelicula> {
      */
     @Override
     public Optional<Pelicula> delete(Pelicula entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            session.remove(entity);
-            session.getTransaction().commit();
+        return MetricasRepositorio.medir("PeliculaRepository.delete", sessionFactory, () -> {
+            try {
+                UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                    registrarCopiasBorradas(session, entity.getId());
+                    session.remove(entity);
+                    invalidarCatalogoAlConfirmar(session, entity.getId());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                throw traducirConflicto(entity, e);
+            }
             return Optional.of(entity);
+        });
+    }
+
+    /**
+     * Guarda las marcas de borrado de las copias de una película con un INSERT ... SELECT,
+     * antes de borrarlas (en cascada o con una sentencia), para que los demás puestos
+     * las quiten al sincronizar.
+     */
+    private static void registrarCopiasBorradas(Session session, Integer peliculaId) {
+        session.createNamedMutationQuery("CopiaBorrada.registrarPorPelicula")
+                .setParameter("peliculaId", peliculaId)
+                .executeUpdate();
+    }
+
+    /**
+     * Convierte los errores de versión de Hibernate en ConflictoConcurrenciaException.
+     */
+    private static RuntimeException traducirConflicto(Pelicula entity, RuntimeException e) {
+        if (ConflictoConcurrenciaException.esConflicto(e)) {
+            return new ConflictoConcurrenciaException(
+                    "La película " + entity.getId() + " ha sido modificada o borrada por otro usuario.", e);
         }
+        return e;
     }
 
     /**
@@ -66,9 +137,62 @@ public class PeliculaRepository implements Repository<Pelicula> {
      */
     @Override
     public Optional<Pelicula> deleteById(Long id) {
-        Optional<Pelicula> pelicula = findById(id);
-        pelicula.ifPresent(this::delete);
-        return pelicula;
+        return MetricasRepositorio.medir("PeliculaRepository.deleteById", sessionFactory, () -> {
+            Pelicula pelicula = UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                Pelicula encontrada = session.find(Pelicula.class, id.intValue());
+                if (encontrada != null) {
+                    registrarCopiasBorradas(session, encontrada.getId());
+                    session.remove(encontrada);
+                    invalidarCatalogoAlConfirmar(session, encontrada.getId());
+                }
+                return encontrada;
+            });
+            return Optional.ofNullable(pelicula);
+        });
+    }
+
+    /**
+     * Elimina una película por su ID sin cargarla ni cargar sus copias.
+     * En una misma transacción se guardan las marcas de borrado de sus copias,
+     * se borran las copias y se borra la película, con una sentencia cada paso.
+     *
+     * @param id ID de la película a eliminar.
+     * @return true si la película existía.
+     */
+    @Override
+    public boolean removeById(Long id) {
+        return MetricasRepositorio.medir("PeliculaRepository.removeById", sessionFactory, () -> {
+            int borradas = UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                registrarCopiasBorradas(session, id.intValue());
+                session.createNamedMutationQuery("Copia.borrarPorPelicula")
+                        .setParameter("peliculaId", id.intValue())
+                        .executeUpdate();
+                invalidarCatalogoAlConfirmar(session, id.intValue());
+                return session.createNamedMutationQuery("Pelicula.borrarPorId")
+                        .setParameter("id", id.intValue())
+                        .executeUpdate();
+            });
+            return borradas > 0;
+        });
+    }
+
+    /**
+     * Actualiza campos de una película por su ID con un único UPDATE, sin cargarla.
+     *
+     * @param id      ID de la película.
+     * @param cambios Nuevo valor de cada campo, por nombre de atributo (p.ej. "director").
+     * @return Número de películas actualizadas (0 si no existe).
+     * @throws IllegalArgumentException Si algún campo no existe o no se puede actualizar.
+     */
+    @Override
+    public int updateById(Long id, Map<String, ?> cambios) {
+        return MetricasRepositorio.medir("PeliculaRepository.updateById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                int actualizadas = ActualizacionPorId.ejecutar(session, Pelicula.class, id.intValue(), cambios, null);
+                invalidarCatalogoAlConfirmar(session, id.intValue());
+                return actualizadas;
+            });
+        });
     }
 
     /**
@@ -79,12 +203,14 @@ public class PeliculaRepository implements Repository<Pelicula> {
      */
     @Override
     public Optional<Pelicula> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
-            // Versión moderna para Hibernate 7 (evita el método deprecated get)
-            return Optional.ofNullable(
-                    session.byId(Pelicula.class).load(id.intValue())
-            );
-        }
+        return MetricasRepositorio.medir("PeliculaRepository.findById", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                // Versión moderna para Hibernate 7 (evita el método deprecated get)
+                return Optional.ofNullable(
+                        session.byId(Pelicula.class).load(id.intValue())
+                );
+            });
+        });
     }
 
     /**
@@ -94,9 +220,14 @@ public class PeliculaRepository implements Repository<Pelicula> {
      */
     @Override
     public List<Pelicula> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("from Pelicula", Pelicula.class).list();
-        }
+        return MetricasRepositorio.medir("PeliculaRepository.findAll", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return session.createNamedQuery("Pelicula.findAll", Pelicula.class)
+                        .setCacheable(true)
+                        .setCacheRegion(REGION_CATALOGO)
+                        .list();
+            });
+        });
     }
 
     /**
@@ -106,10 +237,145 @@ public class PeliculaRepository implements Repository<Pelicula> {
      */
     @Override
     public Long count() {
+        return MetricasRepositorio.medir("PeliculaRepository.count", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return session.createNamedQuery("Pelicula.count", Long.class).getSingleResult();
+            });
+        });
+    }
+
+    /**
+     * Busca películas por texto en el título, el director y la descripción usando
+     * el índice FULLTEXT de MySQL. Los resultados se ordenan por relevancia.
+     * Cada palabra escrita se busca como prefijo y todas deben aparecer. Si el texto no
+     * deja ninguna palabra indexable (p.ej. "la"), se busca en el título con LIKE.
+     *
+     * @param texto  Texto a buscar.
+     * @param pagina Número de página (empezando en 0).
+     * @param tamano Número de resultados por página.
+     * @return Las películas de la página pedida, de más a menos relevante.
+     */
+    public List<Pelicula> buscarTexto(String texto, int pagina, int tamano) {
+        return MetricasRepositorio.medir("PeliculaRepository.buscarTexto", sessionFactory, () -> {
+            String expresion = expresionTextoCompleto(texto);
+            String patron = patronTitulo(texto);
+            if (patron.isEmpty()) {
+                return List.of();
+            }
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                if (expresion.isEmpty()) {
+                    return session.createNativeQuery(
+                                    "select p.* from Peliculas p where p.titulo like :patron escape '!' " +
+                                            "order by p.titulo, p.id limit :limite offset :desplazamiento",
+                                    Pelicula.class)
+                            .setParameter("patron", patron)
+                            .setParameter("limite", tamano)
+                            .setParameter("desplazamiento", pagina * tamano)
+                            .list();
+                }
+                return session.createNativeQuery(
+                                "select p.* from Peliculas p " +
+                                        "where match(p.titulo, p.director, p.descripcion) against (:texto in boolean mode) " +
+                                        "order by match(p.titulo, p.director, p.descripcion) against (:texto in boolean mode) desc, p.id " +
+                                        "limit :limite offset :desplazamiento",
+                                Pelicula.class)
+                        .setParameter("texto", expresion)
+                        .setParameter("limite", tamano)
+                        .setParameter("desplazamiento", pagina * tamano)
+                        .list();
+            });
+        });
+    }
+
+    /**
+     * Convierte el texto escrito por el usuario en una expresión booleana de MySQL:
+     * cada palabra es obligatoria (+) y se busca como prefijo (*). Se eliminan los
+     * operadores que el usuario pudiera escribir para que no alteren la búsqueda, y las
+     * palabras que InnoDB no indexa (demasiado cortas o vacías), que nunca coincidirían.
+     *
+     * @param texto Texto escrito por el usuario.
+     * @return La expresión, o cadena vacía si no queda ninguna palabra indexable.
+     */
+    public static String expresionTextoCompleto(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        StringBuilder expresion = new StringBuilder();
+        for (String palabra : texto.trim().split("\\s+")) {
+            String limpia = palabra.replaceAll("[+\\-<>()~*\"@]", "");
+            if (limpia.length() >= LONGITUD_MINIMA_PALABRA && !PALABRAS_VACIAS.contains(limpia.toLowerCase())) {
+                if (!expresion.isEmpty()) {
+                    expresion.append(' ');
+                }
+                expresion.append('+').append(limpia).append('*');
+            }
+        }
+        return expresion.toString();
+    }
+
+    /**
+     * Patrón LIKE que busca el texto escrito en cualquier parte del título, para cuando
+     * no queda ninguna palabra indexable. Los comodines del usuario se escapan con '!'.
+     *
+     * @param texto Texto escrito por el usuario.
+     * @return El patrón, o cadena vacía si el texto está en blanco.
+     */
+    public static String patronTitulo(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return "";
+        }
+        return "%" + texto.trim().replaceAll("[!%_]", "!$0") + "%";
+    }
+
+    /**
+     * Crea el índice FULLTEXT de búsqueda si todavía no existe.
+     * hbm2ddl no sabe crear índices FULLTEXT, por eso se hace aquí al arrancar.
+     */
+    public void crearIndiceTextoCompleto() {
         try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
-                    "select count(p) from Pelicula p", Long.class
-            ).getSingleResult();
+            Number existe = (Number) session.createNativeQuery(
+                            "select count(*) from information_schema.statistics " +
+                                    "where table_schema = database() and table_name = 'Peliculas' and index_name = :indice",
+                            Object.class)
+                    .setParameter("indice", INDICE_TEXTO_COMPLETO)
+                    .getSingleResult();
+            if (existe.longValue() == 0) {
+                session.beginTransaction();
+                session.createNativeMutationQuery(
+                        "create fulltext index " + INDICE_TEXTO_COMPLETO +
+                                " on Peliculas (titulo, director, descripcion)"
+                ).executeUpdate();
+                session.getTransaction().commit();
+            }
         }
     }
+
+    /**
+     * Obtiene los aciertos y fallos de la caché del catálogo, tanto de la región
+     * de entidades Pelicula como de la región de consultas del catálogo.
+     *
+     * @return Estadísticas acumuladas desde el arranque de la aplicación.
+     */
+    public EstadisticasCache getEstadisticasCache() {
+        return EstadisticasCache.of(sessionFactory, Pelicula.class.getName(), REGION_CATALOGO);
+    }
+
+    /**
+     * Invalida las consultas del catálogo cacheadas y la entrada de la película modificada
+     * cuando se confirme la transacción, para que la siguiente lectura vuelva a la base de datos.
+     * Si se invalidara antes del commit (p.ej. dentro de una unidad de trabajo), otra lectura
+     * podría volver a cachear los datos antiguos mientras tanto.
+     *
+     * @param session Sesión de la escritura.
+     * @param id      ID de la película guardada o eliminada.
+     */
+    private void invalidarCatalogoAlConfirmar(Session session, Integer id) {
+        UnidadDeTrabajo.alConfirmar(session, () -> {
+            var cache = sessionFactory.getCache();
+            cache.evictQueryRegion(REGION_CATALOGO);
+            if (id != null) {
+                cache.evictEntityData(Pelicula.class, id);
+            }
+        });
+    }
 }
@@ -0,0 +1,31 @@
+package org.example.retoconjuntoad_di_2.model.user;
+
+import lombok.Value;
+
+/**
+ * Proyección mínima de un usuario para autenticarlo: solo las columnas necesarias
+ * para comprobar la contraseña y abrir la sesión, sin cargar la entidad ni sus colecciones.
+ */
+@Value
+public class Credenciales {
+
+    /**
+     * Identificador del usuario.
+     */
+    Integer id;
+
+    /**
+     * Nombre de usuario.
+     */
+    String nombreUsuario;
+
+    /**
+     * Contraseña almacenada.
+     */
+    String contrasena;
+
+    /**
+     * Indica si el usuario es administrador.
+     */
+    boolean esAdmin;
+}
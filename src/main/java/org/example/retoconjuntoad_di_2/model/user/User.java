@@ -3,6 +3,7 @@ package org.example.retoconjuntoad_di_2.model.user;
 import jakarta.persistence.*;
 import lombok.*;
 import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -14,6 +15,14 @@ import java.util.List;
  */
 @Data
 @Entity
+@NamedQuery(name = "User.findAll", query = "from User")
+@NamedQuery(name = "User.count", query = "select count(u) from User u")
+@NamedQuery(name = "User.borrarPorId", query = "delete from User u where u.id = :id")
+@NamedQuery(name = "User.findByNombreUsuario", query = "from User u where u.nombreUsuario = :nombreUsuario")
+@NamedQuery(name = "User.findCredenciales", query =
+        "select new org.example.retoconjuntoad_di_2.model.user.Credenciales(" +
+                "u.id, u.nombreUsuario, u.contrasena, u.esAdmin) " +
+                "from User u where u.nombreUsuario = :nombreUsuario")
 @Table(name = "Usuarios")
 public class User implements Serializable {
 
@@ -25,6 +34,15 @@ public class User implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
+    /**
+     * Versión del usuario: UserRepository.save la comprueba al guardar un usuario ya existente.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
     /**
      * Nombre de usuario.
      * Este campo es obligatorio y debe ser único.
@@ -50,8 +68,12 @@ public class User implements Serializable {
      * Lista de copias asociadas al usuario.
      * Relación de uno a muchos con la entidad Copia.
      * Las operaciones en cascada se aplican a todas las copias asociadas.
+     * Se carga de forma perezosa y se excluye de equals/hashCode/toString para no
+     * arrastrar todas las copias al cargar la entidad.
      */
-    @OneToMany(cascade = {CascadeType.ALL}, mappedBy = "user", fetch = FetchType.EAGER)
+    @OneToMany(cascade = {CascadeType.ALL}, mappedBy = "user", fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private List<Copia> copias = new ArrayList<>();
 
     /**
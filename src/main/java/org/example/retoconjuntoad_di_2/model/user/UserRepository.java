@@ -1,11 +1,16 @@
 package org.example.retoconjuntoad_di_2.model.user;
 
+import org.example.retoconjuntoad_di_2.utils.ActualizacionPorId;
+import org.example.retoconjuntoad_di_2.utils.ConflictoConcurrenciaException;
+import org.example.retoconjuntoad_di_2.utils.MetricasRepositorio;
 import org.example.retoconjuntoad_di_2.utils.Repository;
+import org.example.retoconjuntoad_di_2.utils.UnidadDeTrabajo;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -31,15 +36,35 @@ public class UserRepository implements Repository<User> {
      *
      * @param entity Usuario a guardar.
      * @return El usuario gestionado (persistido o actualizado).
+     * @throws ConflictoConcurrenciaException Si otro puesto lo ha modificado o borrado entretanto.
      */
     @Override
     public User save(User entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            session.persist(entity);
-            session.getTransaction().commit();
-            return entity;
+        return MetricasRepositorio.medir("UserRepository.save", sessionFactory, () -> {
+            try {
+                return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                    if (entity.getId() == null) {
+                        session.persist(entity);
+                        return entity;
+                    }
+                    // UPDATE con comprobación de versión (bloqueo optimista)
+                    return session.merge(entity);
+                });
+            } catch (RuntimeException e) {
+                throw traducirConflicto(entity, e);
+            }
+        });
+    }
+
+    /**
+     * Convierte los errores de versión de Hibernate en ConflictoConcurrenciaException.
+     */
+    private static RuntimeException traducirConflicto(User entity, RuntimeException e) {
+        if (ConflictoConcurrenciaException.esConflicto(e)) {
+            return new ConflictoConcurrenciaException(
+                    "El usuario " + entity.getId() + " ha sido modificado o borrado por otro puesto.", e);
         }
+        return e;
     }
 
     /**
@@ -50,12 +75,13 @@ public class UserRepository implements Repository<User> {
      */
     @Override
     public Optional<User> delete(User entity) {
-        try (Session session = sessionFactory.openSession()) {
-            session.beginTransaction();
-            session.remove(entity);
-            session.getTransaction().commit();
-            return Optional.of(entity);
-        }
+        return MetricasRepositorio.medir("UserRepository.delete", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                registrarCopiasBorradas(session, entity.getId());
+                session.remove(entity);
+                return Optional.of(entity);
+            });
+        });
     }
 
     /**
@@ -66,11 +92,66 @@ public class UserRepository implements Repository<User> {
      */
     @Override
     public Optional<User> deleteById(Long id) {
-        Optional<User> user = findById(id);
-        if (user.isPresent()) {
-            delete(user.get());
-        }
-        return user;
+        return MetricasRepositorio.medir("UserRepository.deleteById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                User user = session.find(User.class, id.intValue());
+                if (user != null) {
+                    registrarCopiasBorradas(session, user.getId());
+                    session.remove(user);
+                }
+                return Optional.ofNullable(user);
+            });
+        });
+    }
+
+    /**
+     * Elimina un usuario por su ID sin cargarlo ni cargar sus copias.
+     * En una misma transacción se guardan las marcas de borrado de sus copias,
+     * se borran las copias y se borra el usuario, con una sentencia cada paso.
+     *
+     * @param id ID del usuario a eliminar.
+     * @return true si el usuario existía.
+     */
+    @Override
+    public boolean removeById(Long id) {
+        return MetricasRepositorio.medir("UserRepository.removeById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session -> {
+                registrarCopiasBorradas(session, id.intValue());
+                session.createNamedMutationQuery("Copia.borrarPorUsuario")
+                        .setParameter("userId", id.intValue())
+                        .executeUpdate();
+                int borrados = session.createNamedMutationQuery("User.borrarPorId")
+                        .setParameter("id", id.intValue())
+                        .executeUpdate();
+                return borrados > 0;
+            });
+        });
+    }
+
+    /**
+     * Guarda las marcas de borrado de las copias de un usuario con un INSERT ... SELECT,
+     * antes de borrarlas (en cascada o con una sentencia).
+     */
+    private static void registrarCopiasBorradas(Session session, Integer userId) {
+        session.createNamedMutationQuery("CopiaBorrada.registrarPorUsuario")
+                .setParameter("userId", userId)
+                .executeUpdate();
+    }
+
+    /**
+     * Actualiza campos de un usuario por su ID con un único UPDATE, sin cargarlo.
+     *
+     * @param id      ID del usuario.
+     * @param cambios Nuevo valor de cada campo, por nombre de atributo (p.ej. "esAdmin").
+     * @return Número de usuarios actualizados (0 si no existe).
+     * @throws IllegalArgumentException Si algún campo no existe o no se puede actualizar.
+     */
+    @Override
+    public int updateById(Long id, Map<String, ?> cambios) {
+        return MetricasRepositorio.medir("UserRepository.updateById", sessionFactory, () -> {
+            return UnidadDeTrabajo.escribir(sessionFactory, session ->
+                    ActualizacionPorId.ejecutar(session, User.class, id.intValue(), cambios, null));
+        });
     }
 
     /**
@@ -81,9 +162,11 @@ public class UserRepository implements Repository<User> {
      */
     @Override
     public Optional<User> findById(Long id) {
-        try (Session session = sessionFactory.openSession()) {
-            return Optional.ofNullable(session.get(User.class, id.intValue()));
-        }
+        return MetricasRepositorio.medir("UserRepository.findById", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return Optional.ofNullable(session.get(User.class, id.intValue()));
+            });
+        });
     }
 
     /**
@@ -93,9 +176,11 @@ public class UserRepository implements Repository<User> {
      */
     @Override
     public List<User> findAll() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery("from User", User.class).list();
-        }
+        return MetricasRepositorio.medir("UserRepository.findAll", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return session.createNamedQuery("User.findAll", User.class).list();
+            });
+        });
     }
 
     /**
@@ -105,11 +190,11 @@ public class UserRepository implements Repository<User> {
      */
     @Override
     public Long count() {
-        try (Session session = sessionFactory.openSession()) {
-            return session.createQuery(
-                    "select count(u) from User u", Long.class
-            ).getSingleResult();
-        }
+        return MetricasRepositorio.medir("UserRepository.count", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                return session.createNamedQuery("User.count", Long.class).getSingleResult();
+            });
+        });
     }
 
     /**
@@ -119,13 +204,29 @@ public class UserRepository implements Repository<User> {
      * @return Un Optional que contiene el usuario encontrado, si existe.
      */
     public Optional<User> findByNombreUsuario(String nombreUsuario) {
-        try (Session session = sessionFactory.openSession()) {
-            Query<User> q = session.createQuery(
-                    "from User where nombreUsuario = :nombreUsuario",
-                    User.class
-            );
-            q.setParameter("nombreUsuario", nombreUsuario);
-            return Optional.ofNullable(q.uniqueResult());
-        }
+        return MetricasRepositorio.medir("UserRepository.findByNombreUsuario", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                Query<User> q = session.createNamedQuery("User.findByNombreUsuario", User.class);
+                q.setParameter("nombreUsuario", nombreUsuario);
+                return Optional.ofNullable(q.uniqueResult());
+            });
+        });
+    }
+
+    /**
+     * Obtiene solo los datos necesarios para autenticar a un usuario, con una consulta
+     * por el índice único de nombre_usuario que no carga la entidad User ni sus copias.
+     *
+     * @param nombreUsuario Nombre de usuario a buscar.
+     * @return Un Optional con las credenciales del usuario, si existe.
+     */
+    public Optional<Credenciales> findCredenciales(String nombreUsuario) {
+        return MetricasRepositorio.medir("UserRepository.findCredenciales", sessionFactory, () -> {
+            return UnidadDeTrabajo.leer(sessionFactory, session -> {
+                Query<Credenciales> q = session.createNamedQuery("User.findCredenciales", Credenciales.class);
+                q.setParameter("nombreUsuario", nombreUsuario);
+                return Optional.ofNullable(q.uniqueResult());
+            });
+        });
     }
 }
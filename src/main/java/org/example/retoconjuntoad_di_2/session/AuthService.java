@@ -1,6 +1,6 @@
 package org.example.retoconjuntoad_di_2.session;
 
-import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.model.user.Credenciales;
 import org.example.retoconjuntoad_di_2.model.user.UserRepository;
 
 import java.util.Optional;
@@ -25,18 +25,20 @@ public class AuthService {
     /**
      * Valida las credenciales de un usuario.
      * Comprueba si el nombre de usuario y la contraseña proporcionados son correctos.
+     * Solo se leen las credenciales, no el usuario completo con sus copias, así que
+     * el coste no depende del tamaño de su colección.
      *
      * @param nombreUsuario Nombre de usuario a validar.
      * @param contrasena Contraseña a validar.
-     * @return Un Optional que contiene el usuario si las credenciales son correctas, o un Optional vacío si no lo son.
+     * @return Un Optional que contiene el usuario de sesión si las credenciales son correctas, o un Optional vacío si no lo son.
      */
-    public Optional<User> validateUser(String nombreUsuario, String contrasena) {
-        Optional<User> user = userRepository.findByNombreUsuario(nombreUsuario);
+    public Optional<UsuarioSesion> validateUser(String nombreUsuario, String contrasena) {
+        Optional<Credenciales> credenciales = userRepository.findCredenciales(nombreUsuario);
 
-        if (user.isPresent()) {
-            // getContrasena() viene de Lombok (@Data) a partir del campo "contrasena"
-            if (user.get().getContrasena().equals(contrasena)) {
-                return user;
+        if (credenciales.isPresent()) {
+            Credenciales c = credenciales.get();
+            if (c.getContrasena().equals(contrasena)) {
+                return Optional.of(new UsuarioSesion(c.getId(), c.getNombreUsuario(), c.isEsAdmin()));
             } else {
                 return Optional.empty();
             }
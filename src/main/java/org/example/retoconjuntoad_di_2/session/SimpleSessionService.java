@@ -1,6 +1,5 @@
 package org.example.retoconjuntoad_di_2.session;
 
-import org.example.retoconjuntoad_di_2.model.user.User;
 import org.example.retoconjuntoad_di_2.utils.SessionService;
 
 import java.util.HashMap;
@@ -9,13 +8,13 @@ import java.util.HashMap;
  * Implementación simple del servicio de sesión para gestionar usuarios logueados.
  * Permite iniciar sesión, verificar si un usuario está logueado, cerrar sesión y almacenar datos adicionales de sesión.
  */
-public class SimpleSessionService implements SessionService<User> {
+public class SimpleSessionService implements SessionService<UsuarioSesion> {
 
     /**
      * Usuario actualmente logueado en el sistema.
      * Es estático para que sea compartido entre todas las instancias de la clase.
      */
-    private static User activeUser = null;
+    private static UsuarioSesion activeUser = null;
 
     /**
      * Mapa para almacenar datos adicionales de sesión.
@@ -29,7 +28,7 @@ public class SimpleSessionService implements SessionService<User> {
      * @param user El usuario que inicia sesión.
      */
     @Override
-    public void login(User user) {
+    public void login(UsuarioSesion user) {
         activeUser = user;
     }
 
@@ -59,7 +58,7 @@ public class SimpleSessionService implements SessionService<User> {
      * @return El usuario actualmente logueado, o null si no hay ninguno.
      */
     @Override
-    public User getActive() {
+    public UsuarioSesion getActive() {
         return activeUser;
     }
 
@@ -0,0 +1,27 @@
+package org.example.retoconjuntoad_di_2.session;
+
+import lombok.Value;
+
+/**
+ * Usuario que ha iniciado sesión.
+ * Solo guarda los datos que usa la interfaz; no es una entidad ni tiene colecciones,
+ * así que no arrastra las copias del usuario ni la contraseña.
+ */
+@Value
+public class UsuarioSesion {
+
+    /**
+     * Identificador del usuario.
+     */
+    Integer id;
+
+    /**
+     * Nombre de usuario.
+     */
+    String nombreUsuario;
+
+    /**
+     * Indica si el usuario es administrador.
+     */
+    boolean esAdmin;
+}
@@ -0,0 +1,71 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import org.hibernate.Session;
+import org.hibernate.query.MutationQuery;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Construye y ejecuta la sentencia UPDATE de {@link Repository#updateById}:
+ * una única sentencia por ID que no carga la entidad.
+ * Los campos se validan contra el metamodelo de Hibernate, de modo que solo se pueden
+ * cambiar atributos simples existentes (ni el ID, ni la versión, ni las relaciones),
+ * y se ordenan por nombre para que la misma combinación de campos genere siempre la
+ * misma consulta y se reutilice su plan.
+ */
+public class ActualizacionPorId {
+
+    private ActualizacionPorId() {}
+
+    /**
+     * Actualiza los campos indicados de una fila incrementando su versión.
+     *
+     * @param session       Sesión con una transacción abierta.
+     * @param entidad       Clase de la entidad.
+     * @param id            ID de la fila.
+     * @param cambios       Nuevo valor de cada campo, por nombre de atributo.
+     * @param asignaciones  Asignaciones HQL adicionales (p.ej. "e.modificado = local_datetime"), o null.
+     * @return Número de filas actualizadas (0 si no existe).
+     * @throws IllegalArgumentException Si no hay cambios o algún campo no se puede actualizar.
+     */
+    public static int ejecutar(Session session, Class<?> entidad, Integer id, Map<String, ?> cambios, String asignaciones) {
+        if (cambios.isEmpty()) {
+            throw new IllegalArgumentException("No hay campos que actualizar");
+        }
+        EntityType<?> tipo = session.getSessionFactory().getMetamodel().entity(entidad);
+        Map<String, ?> ordenados = new TreeMap<>(cambios);
+
+        StringBuilder hql = new StringBuilder("update versioned ").append(tipo.getName()).append(" e set ");
+        for (String campo : ordenados.keySet()) {
+            validar(tipo, campo);
+            hql.append("e.").append(campo).append(" = :").append(campo).append(", ");
+        }
+        if (asignaciones != null) {
+            hql.append(asignaciones).append(", ");
+        }
+        hql.setLength(hql.length() - 2);
+        hql.append(" where e.id = :id");
+
+        MutationQuery query = session.createMutationQuery(hql.toString());
+        ordenados.forEach(query::setParameter);
+        query.setParameter("id", id);
+        return query.executeUpdate();
+    }
+
+    private static void validar(EntityType<?> tipo, String campo) {
+        Attribute<?, ?> atributo;
+        try {
+            atributo = tipo.getAttribute(campo);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(tipo.getName() + " no tiene el campo " + campo, e);
+        }
+        if (atributo.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC
+                || atributo instanceof SingularAttribute<?, ?> simple && (simple.isId() || simple.isVersion())) {
+            throw new IllegalArgumentException("El campo " + campo + " de " + tipo.getName() + " no se puede actualizar");
+        }
+    }
+}
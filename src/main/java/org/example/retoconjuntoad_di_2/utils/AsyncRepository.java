@@ -0,0 +1,72 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Fachada asíncrona sobre un Repository.
+ * Todas las operaciones se ejecutan mediante DbExecutor, fuera del hilo de JavaFX,
+ * y sus resultados se entregan de vuelta en el hilo de JavaFX.
+ *
+ * @param <T> Tipo de entidad gestionada.
+ * @param <R> Tipo concreto del repositorio, para poder invocar sus métodos específicos.
+ */
+public class AsyncRepository<T, R extends Repository<T>> {
+
+    private final R repository; // Repositorio síncrono al que se delega.
+
+    /**
+     * Constructor que envuelve un repositorio síncrono.
+     *
+     * @param repository Repositorio al que se delegan las operaciones.
+     */
+    public AsyncRepository(R repository) {
+        this.repository = repository;
+    }
+
+    public CompletableFuture<T> save(T entity) {
+        return run(r -> r.save(entity));
+    }
+
+    public CompletableFuture<Optional<T>> delete(T entity) {
+        return run(r -> r.delete(entity));
+    }
+
+    public CompletableFuture<Optional<T>> deleteById(Long id) {
+        return run(r -> r.deleteById(id));
+    }
+
+    public CompletableFuture<Boolean> removeById(Long id) {
+        return run(r -> r.removeById(id));
+    }
+
+    public CompletableFuture<Integer> updateById(Long id, Map<String, ?> cambios) {
+        return run(r -> r.updateById(id, cambios));
+    }
+
+    public CompletableFuture<Optional<T>> findById(Long id) {
+        return run(r -> r.findById(id));
+    }
+
+    public CompletableFuture<List<T>> findAll() {
+        return run(Repository::findAll);
+    }
+
+    public CompletableFuture<Long> count() {
+        return run(Repository::count);
+    }
+
+    /**
+     * Ejecuta en segundo plano cualquier operación del repositorio concreto,
+     * por ejemplo consultas específicas que no forman parte de Repository.
+     *
+     * @param operacion Operación a ejecutar sobre el repositorio.
+     * @return Futuro con el resultado, completado en el hilo de JavaFX.
+     */
+    public <V> CompletableFuture<V> run(Function<R, V> operacion) {
+        return DbExecutor.supplyAsync(() -> operacion.apply(repository));
+    }
+}
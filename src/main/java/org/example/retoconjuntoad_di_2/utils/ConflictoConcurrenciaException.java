@@ -0,0 +1,35 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import jakarta.persistence.OptimisticLockException;
+import org.hibernate.StaleStateException;
+
+/**
+ * Se lanza al guardar o borrar una entidad que otro usuario ha modificado o borrado
+ * desde que se cargó (la versión de la fila ya no coincide).
+ * Quien la recibe debe recargar la entidad y, si procede, volver a aplicar los cambios.
+ */
+public class ConflictoConcurrenciaException extends RuntimeException {
+
+    public ConflictoConcurrenciaException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+
+    /**
+     * Indica si una excepción, o alguna de sus causas, es un conflicto de versiones.
+     * Hibernate lo notifica como OptimisticLockException o StaleStateException según
+     * el momento en que lo detecta (merge o commit), a veces envuelto en otra excepción.
+     *
+     * @param ex Excepción a comprobar.
+     * @return true si se debe a un conflicto de versiones.
+     */
+    public static boolean esConflicto(Throwable ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof ConflictoConcurrenciaException
+                    || causa instanceof OptimisticLockException
+                    || causa instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utilidades mínimas para leer y escribir líneas CSV separadas por comas.
+ * Soporta campos entre comillas dobles con comas, comillas escapadas ("") y saltos de línea;
+ * en ese último caso el registro ocupa varias líneas (ver {@link #comillasAbiertas(String)}).
+ */
+public class CsvUtil {
+
+    private CsvUtil() {}
+
+    /**
+     * Separa una línea CSV en sus campos.
+     *
+     * @param linea Línea a separar.
+     * @return Lista de campos, sin las comillas que los delimitan.
+     */
+    public static List<String> parsearLinea(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"'); // Comilla escapada
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    /**
+     * Indica si un texto deja abierto un campo entre comillas, es decir, si el registro
+     * continúa en la línea siguiente. Las comillas escapadas ("") cuentan dos veces y no
+     * cambian el resultado, así que para varias líneas basta con combinar los resultados con XOR.
+     *
+     * @param linea Línea (o trozo de registro) a comprobar.
+     * @return true si el número de comillas es impar.
+     */
+    public static boolean comillasAbiertas(String linea) {
+        boolean abiertas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            if (linea.charAt(i) == '"') {
+                abiertas = !abiertas;
+            }
+        }
+        return abiertas;
+    }
+
+    /**
+     * Escapa un valor para escribirlo como campo CSV.
+     * Solo se entrecomilla si contiene comas, comillas o saltos de línea.
+     *
+     * @param valor Valor a escapar (null se escribe como campo vacío).
+     * @return El valor listo para escribir.
+     */
+    public static String escapar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0
+                && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,22 +1,276 @@
 package org.example.retoconjuntoad_di_2.utils;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.Configuration;
 
+import javax.sql.DataSource;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Proporciona la SessionFactory de la aplicación.
+ * Las conexiones se obtienen de un pool HikariCP configurable mediante variables de entorno:
+ * DB_URL, DB_USER, DB_PASSWORD, DB_POOL_SIZE, DB_POOL_MIN_IDLE, DB_POOL_TIMEOUT_MS y DB_PREP_STMT_CACHE_SIZE.
+ * Si no se indican, se usan los valores de hibernate.cfg.xml y unos valores por defecto razonables.
+ * Si DB_READ_URL apunta a otra base de datos (una réplica), las consultas de los repositorios usan
+ * un segundo pool de solo lectura contra ella, de DB_READ_POOL_SIZE conexiones; sus lecturas pueden
+ * ir ligeramente por detrás de las escrituras. Sin DB_READ_URL no se abre: las lecturas usan el pool principal.
+ * La estrategia de generación de IDs se elige con DB_ID_STRATEGY (ver {@link GeneradorIds}).
+ * La SessionFactory se construye una sola vez aunque varios hilos la pidan a la vez, y puede
+ * arrancarse en segundo plano con {@link #iniciarAsync()} mientras se muestra la ventana de login.
+ */
 public class DataProvider {
 
-    private static SessionFactory sessionFactory =null;
+    private static volatile SessionFactory sessionFactory = null;
+    private static volatile HikariDataSource dataSource = null;
+    private static volatile HikariDataSource poolLectura = null; // Conexiones de solo lectura (null si no hay).
+    private static CompletableFuture<SessionFactory> arranque = null; // Arranque en segundo plano en curso.
+
+    // Cerrojos separados: construir la SessionFactory puede tardar (o colgarse sin base de datos)
+    // y no debe bloquear iniciarAsync ni close, que se llaman desde el hilo de JavaFX.
+    private static final Object cerrojoConstruccion = new Object();
+    private static final Object cerrojoArranque = new Object();
+    private static final MetricasPool metricasPool = new MetricasPool();
+    private static final MetricasPool metricasPoolLectura = new MetricasPool();
 
     private DataProvider() {}
 
+    /**
+     * Devuelve la SessionFactory, construyéndola la primera vez que se pide.
+     * Si otro hilo la está construyendo, espera a que termine en lugar de crear otra.
+     *
+     * @return La SessionFactory de la aplicación.
+     */
     public static SessionFactory getSessionFactory() {
-        if (sessionFactory == null) {
-            var configuration = new Configuration().configure();
-            configuration.setProperty("hibernate.connection.username",System.getenv("DB_USER"));
-            configuration.setProperty("hibernate.connection.password",System.getenv("DB_PASSWORD"));
-            sessionFactory = configuration.buildSessionFactory();
+        SessionFactory actual = sessionFactory;
+        if (actual == null) {
+            synchronized (cerrojoConstruccion) {
+                actual = sessionFactory;
+                if (actual == null) {
+                    actual = construir();
+                    sessionFactory = actual;
+                }
+            }
+        }
+        return actual;
+    }
+
+    /**
+     * Arranca en un hilo aparte la construcción de la SessionFactory, el pool de conexiones
+     * y una consulta de calentamiento. Llamadas repetidas devuelven el mismo futuro,
+     * salvo que el arranque anterior haya fallado, en cuyo caso se vuelve a intentar.
+     * El futuro se completa en el hilo de arranque, no en el de JavaFX.
+     * No espera a la construcción en curso, así que puede llamarse desde el hilo de JavaFX.
+     *
+     * @return Futuro que se completa cuando la base de datos está lista.
+     */
+    public static CompletableFuture<SessionFactory> iniciarAsync() {
+        synchronized (cerrojoArranque) {
+            if (arranque == null || arranque.isCompletedExceptionally()) {
+                arranque = CompletableFuture.supplyAsync(DataProvider::getSessionFactory, tarea -> {
+                    Thread hilo = new Thread(tarea, "arranque-bd");
+                    hilo.setDaemon(true); // No impide cerrar la aplicación si el arranque se queda colgado
+                    hilo.start();
+                });
+            }
+            return arranque;
+        }
+    }
+
+    /**
+     * Cierra la SessionFactory y el pool de conexiones. Se llama al salir de la aplicación.
+     * No espera a una construcción en curso (p.ej. con la base de datos inaccesible): el hilo
+     * de arranque es un demonio y no impide que la aplicación termine.
+     */
+    public static void close() {
+        synchronized (cerrojoArranque) {
+            arranque = null;
+        }
+        SessionFactory factory = sessionFactory;
+        sessionFactory = null;
+        if (factory != null) {
+            factory.close();
+        }
+        HikariDataSource pool = dataSource;
+        dataSource = null;
+        if (pool != null) {
+            pool.close();
+        }
+        HikariDataSource lectura = poolLectura;
+        poolLectura = null;
+        if (lectura != null) {
+            lectura.close();
+        }
+    }
+
+    /**
+     * Construye la SessionFactory sobre el pool y la deja lista para la primera consulta.
+     */
+    private static SessionFactory construir() {
+        var configuration = new Configuration().configure();
+        // Los pools se publican en los campos solo cuando todo ha ido bien, para que un close()
+        // concurrente no cierre a medias lo que este hilo todavía está usando
+        HikariDataSource pool = crearPool(
+                env("DB_URL", configuration.getProperty("hibernate.connection.url")),
+                env("DB_USER", configuration.getProperty("hibernate.connection.username")),
+                env("DB_PASSWORD", configuration.getProperty("hibernate.connection.password")),
+                metricasPool
+        );
+        HikariDataSource lectura = null;
+        try {
+            // Hibernate usa el DataSource del pool en lugar de su pool interno (no apto para producción).
+            configuration.getProperties().put("hibernate.connection.datasource", pool);
+            if (GeneradorIds.usarBloques()) {
+                GeneradorIds.configurarBloques(configuration);
+            }
+            SessionFactory nueva = configuration.buildSessionFactory();
+            if (GeneradorIds.usarBloques()) {
+                GeneradorIds.sembrar(nueva);
+            }
+            // Después de sembrar: la semilla de Copias tiene en cuenta los IDs de las marcas de borrado
+            new CopiaRepository(nueva).purgarBorradas();
+
+            if (pool.getJdbcUrl().startsWith("jdbc:mysql:")) {
+                new PeliculaRepository(nueva).crearIndiceTextoCompleto();
+            }
+
+            // Un segundo pool contra la misma base de datos solo duplicaría conexiones
+            String urlLectura = env("DB_READ_URL", null);
+            int tamanoLectura = Integer.parseInt(env("DB_READ_POOL_SIZE", "5"));
+            if (urlLectura != null && !urlLectura.equals(pool.getJdbcUrl()) && tamanoLectura > 0) {
+                lectura = crearPool(
+                        "gestor-pelis-lectura",
+                        urlLectura,
+                        pool.getUsername(),
+                        pool.getPassword(),
+                        tamanoLectura,
+                        true,
+                        metricasPoolLectura
+                );
+            }
+
+            // Consulta trivial para abrir una conexión y dejar listo el camino de las consultas
+            nueva.inStatelessSession(session ->
+                    session.createSelectionQuery("select 1", Integer.class).getSingleResult()
+            );
+            dataSource = pool;
+            poolLectura = lectura;
+            return nueva;
+        } catch (RuntimeException e) {
+            pool.close();
+            if (lectura != null) {
+                lectura.close();
+            }
+            throw e;
         }
-        return sessionFactory;
     }
-}
 
+    /**
+     * Crea el pool de conexiones HikariCP.
+     * Para MySQL se activa además la caché de sentencias preparadas del driver.
+     *
+     * @param url      URL JDBC de la base de datos.
+     * @param user     Usuario de la base de datos.
+     * @param password Contraseña de la base de datos.
+     * @param metricas Receptor de las métricas del pool.
+     * @return El DataSource con el pool ya arrancado.
+     */
+    public static HikariDataSource crearPool(String url, String user, String password, MetricasPool metricas) {
+        return crearPool("gestor-pelis", url, user, password, tamanoPoolConfigurado(), false, metricas);
+    }
+
+    /**
+     * Número máximo de conexiones del pool principal. Si el pool todavía no se ha creado,
+     * devuelve el tamaño con el que se creará (DB_POOL_SIZE, 10 por defecto).
+     *
+     * @return El maximumPoolSize del pool principal.
+     */
+    public static int getTamanoPool() {
+        HikariDataSource actual = dataSource;
+        return actual != null ? actual.getMaximumPoolSize() : tamanoPoolConfigurado();
+    }
+
+    private static int tamanoPoolConfigurado() {
+        return Integer.parseInt(env("DB_POOL_SIZE", "10"));
+    }
+
+    /**
+     * Crea un pool de conexiones HikariCP con nombre y tamaño propios.
+     * Las conexiones de un pool de solo lectura se marcan como tales una sola vez, al crearlas,
+     * en lugar de cambiar el modo (una sentencia más en MySQL) cada vez que se piden.
+     *
+     * @param nombre      Nombre del pool (aparece en los logs y en las métricas).
+     * @param url         URL JDBC de la base de datos.
+     * @param user        Usuario de la base de datos.
+     * @param password    Contraseña de la base de datos.
+     * @param tamano      Número máximo de conexiones.
+     * @param soloLectura true para conexiones de solo lectura.
+     * @param metricas    Receptor de las métricas del pool.
+     * @return El DataSource con el pool ya arrancado.
+     */
+    public static HikariDataSource crearPool(String nombre, String url, String user, String password,
+                                             int tamano, boolean soloLectura, MetricasPool metricas) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(nombre);
+        config.setJdbcUrl(url);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setReadOnly(soloLectura);
+        config.setMaximumPoolSize(tamano);
+        config.setMinimumIdle(Math.min(tamano, Integer.parseInt(env("DB_POOL_MIN_IDLE", "2"))));
+        config.setConnectionTimeout(Long.parseLong(env("DB_POOL_TIMEOUT_MS", "30000")));
+        config.setMetricsTrackerFactory(metricas);
+
+        if (url.startsWith("jdbc:mysql:")) {
+            config.addDataSourceProperty("cachePrepStmts", "true");
+            config.addDataSourceProperty("prepStmtCacheSize", env("DB_PREP_STMT_CACHE_SIZE", "250"));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            config.addDataSourceProperty("useServerPrepStmts", "true");
+            // Reescribe los lotes de INSERT en sentencias multi-fila
+            config.addDataSourceProperty("rewriteBatchedStatements", "true");
+            // Respeta el fetch size con un cursor en el servidor en vez de traer todo el resultado
+            config.addDataSourceProperty("useCursorFetch", "true");
+        }
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Obtiene las métricas actuales del pool de conexiones.
+     *
+     * @return Conexiones activas, inactivas, en espera y latencia de adquisición.
+     */
+    public static MetricasPool.Instantanea getMetricasPool() {
+        return metricasPool.instantanea();
+    }
+
+    /**
+     * Obtiene las métricas actuales del pool de conexiones de solo lectura.
+     *
+     * @return Conexiones activas, inactivas, en espera y latencia de adquisición.
+     */
+    public static MetricasPool.Instantanea getMetricasPoolLectura() {
+        return metricasPoolLectura.instantanea();
+    }
+
+    /**
+     * Devuelve el pool de solo lectura que corresponde a una SessionFactory.
+     * Solo existe para la SessionFactory de la aplicación, y solo si se ha configurado DB_READ_URL.
+     *
+     * @param factory SessionFactory para la que se van a hacer las lecturas.
+     * @return El pool de solo lectura, o null si esa SessionFactory no tiene.
+     */
+    public static DataSource getPoolLectura(SessionFactory factory) {
+        return factory == sessionFactory ? poolLectura : null;
+    }
+
+    /**
+     * Lee una variable de entorno, devolviendo un valor por defecto si no está definida.
+     */
+    private static String env(String nombre, String porDefecto) {
+        String valor = System.getenv(nombre);
+        return valor != null && !valor.isBlank() ? valor : porDefecto;
+    }
+}
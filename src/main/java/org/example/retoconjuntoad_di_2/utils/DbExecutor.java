@@ -0,0 +1,74 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ejecutor de las operaciones de base de datos fuera del hilo de JavaFX.
+ * Cada tarea corre en un hilo virtual, pero el número de tareas que acceden a la
+ * base de datos a la vez está limitado por un semáforo con tantos permisos como
+ * conexiones tiene el pool, para no dejar tareas esperando una conexión libre.
+ * Los resultados se entregan siempre en el hilo de JavaFX mediante Platform.runLater,
+ * así que los callbacks encadenados pueden tocar la interfaz directamente.
+ */
+public class DbExecutor {
+
+    private static final Semaphore permisos = new Semaphore(DataProvider.getTamanoPool());
+    private static final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-", 0).factory());
+
+    private DbExecutor() {}
+
+    /**
+     * Ejecuta una tarea en segundo plano y devuelve un futuro que se completa en el hilo de JavaFX.
+     * Si el futuro se cancela antes de que la tarea empiece, la tarea no llega a ejecutarse;
+     * si ya está en marcha, se deja terminar y su resultado se descarta. No se interrumpe
+     * el hilo: interrumpir una llamada JDBC en curso deja inservible la conexión del pool.
+     *
+     * @param tarea Tarea a ejecutar (normalmente una llamada a un repositorio).
+     * @return Futuro con el resultado de la tarea.
+     */
+    public static <V> CompletableFuture<V> supplyAsync(Callable<V> tarea) {
+        CompletableFuture<V> resultado = new CompletableFuture<>();
+
+        Future<?> ejecucion = executor.submit(() -> {
+            try {
+                permisos.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                if (resultado.isDone()) {
+                    return; // Cancelada mientras esperaba turno
+                }
+                V valor = tarea.call();
+                Platform.runLater(() -> resultado.complete(valor));
+            } catch (Throwable ex) {
+                Platform.runLater(() -> resultado.completeExceptionally(ex));
+            } finally {
+                permisos.release();
+            }
+        });
+
+        resultado.whenComplete((valor, ex) -> {
+            if (resultado.isCancelled()) {
+                ejecucion.cancel(false);
+            }
+        });
+        return resultado;
+    }
+
+    /**
+     * Detiene el ejecutor. Se llama al cerrar la aplicación.
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import lombok.Value;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Aciertos y fallos acumulados de la caché de segundo nivel para una región de
+ * entidades y una región de consultas. Requiere hibernate.generate_statistics.
+ */
+@Value
+public class EstadisticasCache {
+
+    long aciertosEntidades;
+    long fallosEntidades;
+    long aciertosConsultas;
+    long fallosConsultas;
+
+    /**
+     * Lee las estadísticas actuales de Hibernate para las regiones indicadas.
+     *
+     * @param sessionFactory   Fábrica de sesiones con las estadísticas activadas.
+     * @param regionEntidades  Región de la caché de entidades.
+     * @param regionConsultas  Región de la caché de consultas.
+     * @return Instantánea de las estadísticas.
+     */
+    public static EstadisticasCache of(SessionFactory sessionFactory, String regionEntidades, String regionConsultas) {
+        Statistics statistics = sessionFactory.getStatistics();
+        CacheRegionStatistics entidades = statistics.getDomainDataRegionStatistics(regionEntidades);
+        CacheRegionStatistics consultas = statistics.getQueryRegionStatistics(regionConsultas);
+        return new EstadisticasCache(
+                entidades != null ? entidades.getHitCount() : 0,
+                entidades != null ? entidades.getMissCount() : 0,
+                consultas != null ? consultas.getHitCount() : 0,
+                consultas != null ? consultas.getMissCount() : 0
+        );
+    }
+
+    /**
+     * @return Proporción de aciertos en la caché de entidades (entre 0 y 1).
+     */
+    public double getRatioEntidades() {
+        return ratio(aciertosEntidades, fallosEntidades);
+    }
+
+    /**
+     * @return Proporción de aciertos en la caché de consultas (entre 0 y 1).
+     */
+    public double getRatioConsultas() {
+        return ratio(aciertosConsultas, fallosConsultas);
+    }
+
+    private static double ratio(long aciertos, long fallos) {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Entidades: %d aciertos / %d fallos (%.0f%%) - Consultas: %d aciertos / %d fallos (%.0f%%)",
+                aciertosEntidades, fallosEntidades, getRatioEntidades() * 100,
+                aciertosConsultas, fallosConsultas, getRatioConsultas() * 100);
+    }
+}
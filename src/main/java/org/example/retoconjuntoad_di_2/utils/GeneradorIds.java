@@ -0,0 +1,80 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+
+import java.util.Map;
+
+/**
+ * Estrategia de generación de IDs de copias, películas y usuarios, elegida por instalación
+ * con la variable de entorno DB_ID_STRATEGY:
+ * <ul>
+ *     <li>{@code identity} (por defecto): AUTO_INCREMENT de MySQL, como indican las anotaciones.
+ *     Cada INSERT se ejecuta en el momento para conocer su ID, así que no se pueden agrupar en lotes.</li>
+ *     <li>{@code pooled}: generador de tabla con optimizador pooled-lo (orm-ids-pooled.xml).
+ *     Los IDs se reservan en bloques y los INSERT se agrupan en lotes JDBC.</li>
+ * </ul>
+ * Se puede pasar de una a otra en cualquier momento: al arrancar con {@code pooled} se
+ * siembra el generador a partir del mayor ID de cada tabla, y las columnas conservan su
+ * AUTO_INCREMENT, que MySQL adelanta solo al recibir IDs explícitos, para volver a {@code identity}.
+ */
+public class GeneradorIds {
+
+    private static final String MAPEO_POOLED = "orm-ids-pooled.xml";
+
+    // Tablas con IDs por bloques (cada una usa su nombre como segmento de hibernate_sequences)
+    // y el mayor ID ya usado en cada una. Los IDs de las copias borradas siguen vivos en
+    // CopiasBorradas (las marcas de borrado) y no se pueden repartir otra vez.
+    private static final Map<String, String> MAYOR_ID_USADO = Map.of(
+            "Copias", "greatest(coalesce((select max(id) from Copias), 0), " +
+                    "coalesce((select max(id) from CopiasBorradas), 0))",
+            "Peliculas", "coalesce((select max(id) from Peliculas), 0)",
+            "Usuarios", "coalesce((select max(id) from Usuarios), 0)"
+    );
+
+    private GeneradorIds() {}
+
+    /**
+     * Indica si esta instalación usa IDs por bloques.
+     *
+     * @return true si DB_ID_STRATEGY es "pooled".
+     */
+    public static boolean usarBloques() {
+        return "pooled".equalsIgnoreCase(System.getenv("DB_ID_STRATEGY"));
+    }
+
+    /**
+     * Añade a la configuración el mapeo que sustituye IDENTITY por el generador de tabla.
+     *
+     * @param configuration Configuración de Hibernate aún sin construir.
+     */
+    public static void configurarBloques(Configuration configuration) {
+        configuration.addResource(MAPEO_POOLED);
+    }
+
+    /**
+     * Deja el generador listo para continuar después de los IDs ya existentes: crea la fila
+     * de cada tabla si falta y la adelanta si alguna fila se insertó con un ID mayor
+     * (por ejemplo, mientras la instalación usaba IDENTITY). Con pooled-lo el valor guardado
+     * es el primer ID que se repartirá, así que basta con que sea mayor que el mayor ID usado,
+     * incluidos los de las copias borradas que conservan su marca de borrado.
+     *
+     * @param sessionFactory SessionFactory construida con {@link #configurarBloques}.
+     */
+    public static void sembrar(SessionFactory sessionFactory) {
+        sessionFactory.inTransaction(session -> MAYOR_ID_USADO.forEach((tabla, mayorId) -> {
+            String siguiente = "(" + mayorId + " + 1)";
+            session.createNativeMutationQuery(
+                            "insert into hibernate_sequences (sequence_name, next_val) " +
+                                    "select :segmento, " + siguiente + " from (select 1 as uno) fila " +
+                                    "where not exists (select 1 from hibernate_sequences where sequence_name = :segmento)")
+                    .setParameter("segmento", tabla)
+                    .executeUpdate();
+            session.createNativeMutationQuery(
+                            "update hibernate_sequences set next_val = " + siguiente + " " +
+                                    "where sequence_name = :segmento and next_val < " + siguiente)
+                    .setParameter("segmento", tabla)
+                    .executeUpdate();
+        }));
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Índice ordenado de elementos por un texto normalizado (sin mayúsculas ni tildes),
+ * para resolver búsquedas "empieza por" en tiempo logarítmico.
+ * El texto de cada elemento se normaliza una sola vez, al añadirlo al índice,
+ * y no en cada búsqueda.
+ *
+ * @param <T> Tipo de los elementos indexados.
+ */
+public class IndicePrefijos<T> {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    private final Function<T, String> extractor; // Obtiene el texto a indexar de cada elemento.
+    private final NavigableMap<String, List<T>> indice = new TreeMap<>();
+
+    /**
+     * Constructor del índice.
+     *
+     * @param extractor Función que obtiene de cada elemento el texto por el que se busca.
+     */
+    public IndicePrefijos(Function<T, String> extractor) {
+        this.extractor = extractor;
+    }
+
+    /**
+     * Normaliza un texto para compararlo: minúsculas y sin tildes ni diacríticos.
+     *
+     * @param texto Texto a normalizar.
+     * @return El texto normalizado, o cadena vacía si es null.
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase(Locale.ROOT);
+    }
+
+    public void agregar(T elemento) {
+        indice.computeIfAbsent(normalizar(extractor.apply(elemento)), k -> new ArrayList<>(1)).add(elemento);
+    }
+
+    public void agregarTodos(Collection<? extends T> elementos) {
+        elementos.forEach(this::agregar);
+    }
+
+    public void quitar(T elemento) {
+        String clave = normalizar(extractor.apply(elemento));
+        List<T> elementos = indice.get(clave);
+        if (elementos != null) {
+            elementos.remove(elemento);
+            if (elementos.isEmpty()) {
+                indice.remove(clave);
+            }
+        }
+    }
+
+    public void quitarTodos(Collection<? extends T> elementos) {
+        elementos.forEach(this::quitar);
+    }
+
+    public void limpiar() {
+        indice.clear();
+    }
+
+    /**
+     * Busca los elementos cuyo texto normalizado empieza por el prefijo indicado.
+     *
+     * @param prefijo Prefijo a buscar, sin normalizar.
+     * @return Conjunto (por identidad) con los elementos que coinciden.
+     */
+    public Set<T> buscar(String prefijo) {
+        Set<T> coincidencias = Collections.newSetFromMap(new IdentityHashMap<>());
+        rango(prefijo).forEach(coincidencias::addAll);
+        return coincidencias;
+    }
+
+    /**
+     * Devuelve, sin copiar nada, la vista del árbol con los elementos cuyo texto normalizado
+     * empieza por el prefijo, agrupados por texto y en orden alfabético. Los dos extremos del
+     * rango se localizan con búsqueda binaria, así que el coste no depende del tamaño del índice,
+     * solo del número de coincidencias que se recorran.
+     *
+     * @param prefijo Prefijo a buscar, sin normalizar.
+     * @return Vista de solo lectura de los grupos que coinciden.
+     */
+    public Collection<List<T>> rango(String prefijo) {
+        String desde = normalizar(prefijo);
+        String hasta = siguientePrefijo(desde);
+        NavigableMap<String, List<T>> vista = hasta != null
+                ? indice.subMap(desde, true, hasta, false)
+                : indice.tailMap(desde, true);
+        return Collections.unmodifiableCollection(vista.values());
+    }
+
+    /**
+     * Menor texto posterior a todos los que empiezan por el prefijo: se quitan los '\uFFFF'
+     * finales y se incrementa el último carácter restante (una cota como prefijo + '\uFFFF'
+     * dejaría fuera los textos con ese carácter tras el prefijo).
+     *
+     * @return La cota superior exclusiva, o null si no la hay (prefijo vacío o solo '\uFFFF').
+     */
+    private static String siguientePrefijo(String prefijo) {
+        int i = prefijo.length() - 1;
+        while (i >= 0 && prefijo.charAt(i) == Character.MAX_VALUE) {
+            i--;
+        }
+        return i < 0 ? null : prefijo.substring(0, i) + (char) (prefijo.charAt(i) + 1);
+    }
+}
@@ -1,13 +1,11 @@
 package org.example.retoconjuntoad_di_2.utils;
 
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import lombok.Getter;
 
 import java.io.IOException;
+import java.util.concurrent.CompletionException;
 
 /**
  *  Clase de utilidad para gestionar la ventana de JavaFX
@@ -23,16 +21,17 @@ public class JavaFXUtil {
         JavaFXUtil.stage = stage;
     }
 
+    /**
+     * Muestra la vista indicada en la ventana principal.
+     * La vista se toma del registro de {@link Vistas}, así que solo se analiza la primera vez.
+     */
     public static <T> T setScene(String fxml){
         try{
-            FXMLLoader loader = new FXMLLoader(JavaFXUtil.class.getResource(fxml));
-            Parent root = loader.load();
-            T controller = loader.getController();
-            Scene scene = new Scene(root);
-            stage.setScene(scene);
+            Vistas.Vista<T> vista = Vistas.obtener(fxml);
+            stage.setScene(vista.getEscena());
             stage.centerOnScreen();
             stage.show();
-            return controller;
+            return vista.getControlador();
         }
         catch(IOException ex){
             ex.printStackTrace();
@@ -49,4 +48,17 @@ public class JavaFXUtil {
         alert.showAndWait();
     }
 
+    /**
+     * Muestra un error producido en una operación asíncrona.
+     * Desenvuelve las CompletionException para mostrar la causa real.
+     */
+    public static void showError(String title, String header, Throwable ex){
+        Throwable causa = ex;
+        while (causa instanceof CompletionException && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        causa.printStackTrace();
+        showModal(Alert.AlertType.ERROR, title, header, causa.getMessage());
+    }
+
 }
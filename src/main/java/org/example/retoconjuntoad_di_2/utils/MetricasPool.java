@@ -0,0 +1,82 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recoge las métricas del pool de conexiones de HikariCP.
+ * Hikari notifica cada préstamo de conexión y expone el estado del pool;
+ * aquí se acumulan para poder consultarlas en cualquier momento.
+ */
+public class MetricasPool implements MetricsTrackerFactory {
+
+    private volatile PoolStats poolStats; // Estado del pool (activas, inactivas, en espera).
+
+    private final LongAdder adquisiciones = new LongAdder();     // Número de conexiones prestadas.
+    private final LongAdder nanosAdquisicion = new LongAdder();  // Tiempo total esperando conexión.
+    private final AtomicLong maxNanosAdquisicion = new AtomicLong(); // Peor tiempo de espera.
+    private final LongAdder timeouts = new LongAdder();          // Peticiones que agotaron la espera.
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                adquisiciones.increment();
+                nanosAdquisicion.add(elapsedAcquiredNanos);
+                maxNanosAdquisicion.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    /**
+     * Obtiene una instantánea de las métricas actuales del pool.
+     *
+     * @return Estado actual del pool y latencias de adquisición acumuladas.
+     */
+    public Instantanea instantanea() {
+        PoolStats stats = poolStats;
+        long total = adquisiciones.sum();
+        return new Instantanea(
+                stats != null ? stats.getActiveConnections() : 0,
+                stats != null ? stats.getIdleConnections() : 0,
+                stats != null ? stats.getPendingThreads() : 0,
+                total,
+                total == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanosAdquisicion.sum() / total),
+                TimeUnit.NANOSECONDS.toMicros(maxNanosAdquisicion.get()),
+                timeouts.sum()
+        );
+    }
+
+    /**
+     * Estado del pool en un momento dado.
+     */
+    @Value
+    public static class Instantanea {
+        int activas;
+        int inactivas;
+        int enEspera;
+        long adquisiciones;
+        long microsAdquisicionMedia;
+        long microsAdquisicionMax;
+        long timeouts;
+
+        @Override
+        public String toString() {
+            return String.format("Pool: %d activas, %d inactivas, %d en espera - adquisición media %d µs, máx %d µs (%d préstamos, %d timeouts)",
+                    activas, inactivas, enEspera, microsAdquisicionMedia, microsAdquisicionMax, adquisiciones, timeouts);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import lombok.Value;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Registro en memoria de métricas de las operaciones de los repositorios.
+ * Cada operación se cronometra y se cuentan sus llamadas, errores, filas devueltas y
+ * sentencias SQL ejecutadas (según las estadísticas de Hibernate). Las latencias se
+ * guardan en una ventana circular de las últimas muestras para calcular percentiles.
+ * <p>
+ * Las sentencias SQL se obtienen del contador global de Hibernate, así que con varias
+ * operaciones simultáneas el reparto por operación es aproximado.
+ */
+public class MetricasRepositorio {
+
+    private static final int MUESTRAS_POR_OPERACION = 1024; // Tamaño de la ventana de latencias.
+    private static final int MAX_CONSULTAS_LENTAS = 10;     // Consultas mostradas en el ranking.
+
+    private static final Map<String, Metrica> metricas = new ConcurrentHashMap<>();
+
+    private MetricasRepositorio() {}
+
+    /**
+     * Acción cronometrada; puede lanzar una excepción comprobada.
+     */
+    @FunctionalInterface
+    public interface Accion<V, E extends Exception> {
+        V ejecutar() throws E;
+    }
+
+    /**
+     * Ejecuta una operación de repositorio registrando su latencia, filas y sentencias SQL.
+     *
+     * @param operacion      Nombre de la operación, p. ej. "CopiaRepository.findById".
+     * @param sessionFactory Fábrica de sesiones de la que se leen las estadísticas.
+     * @param accion         Operación a ejecutar.
+     * @return El resultado de la operación.
+     */
+    public static <V, E extends Exception> V medir(String operacion, SessionFactory sessionFactory,
+                                                   Accion<V, E> accion) throws E {
+        Statistics statistics = sessionFactory.getStatistics();
+        long sentenciasAntes = statistics.getPrepareStatementCount();
+        long inicio = System.nanoTime();
+        boolean error = true;
+        V resultado = null;
+        try {
+            resultado = accion.ejecutar();
+            error = false;
+            return resultado;
+        } finally {
+            long nanos = System.nanoTime() - inicio;
+            long sentencias = statistics.getPrepareStatementCount() - sentenciasAntes;
+            metricas.computeIfAbsent(operacion, k -> new Metrica())
+                    .registrar(nanos, error ? 0 : contarFilas(resultado), sentencias, error);
+        }
+    }
+
+    /**
+     * Registra una duración medida fuera de los repositorios (p. ej. el login completo).
+     *
+     * @param operacion Nombre de la operación.
+     * @param nanos     Duración en nanosegundos.
+     */
+    public static void registrar(String operacion, long nanos) {
+        metricas.computeIfAbsent(operacion, k -> new Metrica()).registrar(nanos, 0, 0, false);
+    }
+
+    /**
+     * Obtiene el resumen de todas las operaciones registradas, ordenado por nombre.
+     *
+     * @return Lista de resúmenes con llamadas, errores y percentiles de latencia.
+     */
+    public static List<ResumenOperacion> resumen() {
+        return metricas.entrySet().stream()
+                .map(e -> e.getValue().resumir(e.getKey()))
+                .sorted(Comparator.comparing(ResumenOperacion::getOperacion))
+                .toList();
+    }
+
+    /**
+     * Obtiene las consultas HQL con mayor tiempo máximo de ejecución según Hibernate.
+     *
+     * @param sessionFactory Fábrica de sesiones con las estadísticas activadas.
+     * @return Las consultas más lentas, de mayor a menor tiempo máximo.
+     */
+    public static List<ConsultaLenta> consultasLentas(SessionFactory sessionFactory) {
+        Statistics statistics = sessionFactory.getStatistics();
+        return Arrays.stream(statistics.getQueries())
+                .map(consulta -> {
+                    QueryStatistics q = statistics.getQueryStatistics(consulta);
+                    return new ConsultaLenta(consulta, q.getExecutionCount(),
+                            q.getExecutionAvgTime(), q.getExecutionMaxTime());
+                })
+                .sorted(Comparator.comparingLong(ConsultaLenta::getMaxMs).reversed())
+                .limit(MAX_CONSULTAS_LENTAS)
+                .toList();
+    }
+
+    /**
+     * Escribe todas las métricas en formato de texto de Prometheus, junto con el estado
+     * del pool de conexiones, para que las recoja un node_exporter (textfile collector).
+     *
+     * @param fichero Fichero de destino.
+     * @throws IOException Si no se puede escribir el fichero.
+     */
+    public static void exportarPrometheus(Path fichero) throws IOException {
+        try (Writer w = Files.newBufferedWriter(fichero, StandardCharsets.UTF_8)) {
+            List<ResumenOperacion> resumen = resumen();
+
+            w.write("# HELP gestor_repositorio_latencia_segundos Latencia de las operaciones de repositorio.\n");
+            w.write("# TYPE gestor_repositorio_latencia_segundos summary\n");
+            for (ResumenOperacion r : resumen) {
+                String etiqueta = "operacion=\"" + r.getOperacion() + "\"";
+                w.write(linea("gestor_repositorio_latencia_segundos", etiqueta + ",quantile=\"0.5\"", r.getP50Ms() / 1000));
+                w.write(linea("gestor_repositorio_latencia_segundos", etiqueta + ",quantile=\"0.95\"", r.getP95Ms() / 1000));
+                w.write(linea("gestor_repositorio_latencia_segundos", etiqueta + ",quantile=\"0.99\"", r.getP99Ms() / 1000));
+                w.write(linea("gestor_repositorio_latencia_segundos_sum", etiqueta, r.getTotalMs() / 1000));
+                w.write(linea("gestor_repositorio_latencia_segundos_count", etiqueta, r.getLlamadas()));
+            }
+
+            escribirContador(w, resumen, "gestor_repositorio_errores_total",
+                    "Operaciones de repositorio que terminaron con error.", ResumenOperacion::getErrores);
+            escribirContador(w, resumen, "gestor_repositorio_filas_total",
+                    "Filas devueltas por las operaciones de repositorio.", ResumenOperacion::getFilas);
+            escribirContador(w, resumen, "gestor_repositorio_sentencias_total",
+                    "Sentencias SQL ejecutadas por las operaciones de repositorio.", ResumenOperacion::getSentencias);
+
+            MetricasPool.Instantanea pool = DataProvider.getMetricasPool();
+            w.write("# TYPE gestor_pool_conexiones gauge\n");
+            w.write(linea("gestor_pool_conexiones", "estado=\"activa\"", pool.getActivas()));
+            w.write(linea("gestor_pool_conexiones", "estado=\"inactiva\"", pool.getInactivas()));
+            w.write(linea("gestor_pool_conexiones", "estado=\"en_espera\"", pool.getEnEspera()));
+            w.write("# TYPE gestor_pool_adquisicion_media_segundos gauge\n");
+            w.write(linea("gestor_pool_adquisicion_media_segundos", null, pool.getMicrosAdquisicionMedia() / 1_000_000.0));
+        }
+    }
+
+    private static void escribirContador(Writer w, List<ResumenOperacion> resumen, String nombre, String ayuda,
+                                         ToLongFunction<ResumenOperacion> valor) throws IOException {
+        w.write("# HELP " + nombre + " " + ayuda + "\n");
+        w.write("# TYPE " + nombre + " counter\n");
+        for (ResumenOperacion r : resumen) {
+            w.write(linea(nombre, "operacion=\"" + r.getOperacion() + "\"", valor.applyAsLong(r)));
+        }
+    }
+
+    /**
+     * Línea de una muestra con decimales (latencias y medias en segundos).
+     */
+    private static String linea(String nombre, String etiquetas, double valor) {
+        return nombre + (etiquetas != null ? "{" + etiquetas + "}" : "") + " "
+                + String.format(Locale.ROOT, "%.6f", valor) + "\n";
+    }
+
+    /**
+     * Línea de una muestra entera (contadores, recuentos y conexiones), sin decimales.
+     */
+    private static String linea(String nombre, String etiquetas, long valor) {
+        return nombre + (etiquetas != null ? "{" + etiquetas + "}" : "") + " " + valor + "\n";
+    }
+
+    private static long contarFilas(Object resultado) {
+        if (resultado == null) {
+            return 0;
+        }
+        if (resultado instanceof Collection<?> coleccion) {
+            return coleccion.size();
+        }
+        if (resultado instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+
+    /**
+     * Métricas acumuladas de una operación.
+     */
+    private static class Metrica {
+        private final LongAdder llamadas = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder nanosTotales = new LongAdder();
+        private final LongAdder filas = new LongAdder();
+        private final LongAdder sentencias = new LongAdder();
+        private final AtomicLong nanosMax = new AtomicLong();
+        private final long[] muestras = new long[MUESTRAS_POR_OPERACION];
+        private int siguiente = 0;   // Posición de la próxima muestra en la ventana circular.
+        private int ocupadas = 0;    // Muestras válidas en la ventana.
+
+        void registrar(long nanos, long filasDevueltas, long sentenciasEjecutadas, boolean error) {
+            llamadas.increment();
+            nanosTotales.add(nanos);
+            filas.add(filasDevueltas);
+            sentencias.add(sentenciasEjecutadas);
+            nanosMax.accumulateAndGet(nanos, Math::max);
+            if (error) {
+                errores.increment();
+            }
+            synchronized (muestras) {
+                muestras[siguiente] = nanos;
+                siguiente = (siguiente + 1) % muestras.length;
+                ocupadas = Math.min(ocupadas + 1, muestras.length);
+            }
+        }
+
+        ResumenOperacion resumir(String operacion) {
+            long[] ordenadas;
+            synchronized (muestras) {
+                ordenadas = Arrays.copyOf(muestras, ocupadas);
+            }
+            Arrays.sort(ordenadas);
+            long total = llamadas.sum();
+            return new ResumenOperacion(operacion, total, errores.sum(),
+                    percentil(ordenadas, 0.50), percentil(ordenadas, 0.95), percentil(ordenadas, 0.99),
+                    aMs(nanosMax.get()), aMs(nanosTotales.sum()), filas.sum(), sentencias.sum());
+        }
+
+        private static double percentil(long[] ordenadas, double p) {
+            if (ordenadas.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(p * ordenadas.length) - 1;
+            return aMs(ordenadas[Math.max(0, indice)]);
+        }
+
+        private static double aMs(long nanos) {
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+
+    /**
+     * Resumen de una operación: llamadas, errores, latencias en milisegundos, filas y sentencias.
+     */
+    @Value
+    public static class ResumenOperacion {
+        String operacion;
+        long llamadas;
+        long errores;
+        double p50Ms;
+        double p95Ms;
+        double p99Ms;
+        double maxMs;
+        double totalMs;
+        long filas;
+        long sentencias;
+
+        public double getFilasPorLlamada() {
+            return llamadas == 0 ? 0 : (double) filas / llamadas;
+        }
+
+        public double getSentenciasPorLlamada() {
+            return llamadas == 0 ? 0 : (double) sentencias / llamadas;
+        }
+    }
+
+    /**
+     * Estadísticas de una consulta HQL según Hibernate (tiempos en milisegundos).
+     */
+    @Value
+    public static class ConsultaLenta {
+        String consulta;
+        long ejecuciones;
+        long mediaMs;
+        long maxMs;
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+/**
+ * Controlador de una vista que se reutiliza entre aperturas (ver {@link Vistas}).
+ * {@link #reiniciar()} se llama en el hilo de JavaFX cada vez que la vista se va a mostrar,
+ * incluida la primera, y debe dejar el controlador como si la vista se acabara de cargar.
+ */
+public interface Reiniciable {
+
+    /**
+     * Limpia el estado de la apertura anterior y carga los datos de esta.
+     */
+    void reiniciar();
+}
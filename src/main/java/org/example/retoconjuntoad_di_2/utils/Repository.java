@@ -1,13 +1,41 @@
 package org.example.retoconjuntoad_di_2.utils;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface Repository<T> {
     T save(T entity);
     Optional<T> delete(T entity);
+
+    /**
+     * Elimina una entidad por su ID cargándola antes, para poder devolverla.
+     * Si no se necesita la entidad borrada, {@link #removeById} es más barato.
+     *
+     * @param id ID de la entidad a eliminar.
+     * @return La entidad eliminada, si existía.
+     */
     Optional<T> deleteById(Long id);
 
+    /**
+     * Elimina una entidad por su ID con sentencias directas, sin cargarla
+     * (ni a ella ni a sus asociaciones).
+     *
+     * @param id ID de la entidad a eliminar.
+     * @return true si la entidad existía.
+     */
+    boolean removeById(Long id);
+
+    /**
+     * Actualiza campos de una entidad por su ID con un único UPDATE, sin cargarla.
+     *
+     * @param id      ID de la entidad.
+     * @param cambios Nuevo valor de cada campo, por nombre de atributo.
+     * @return Número de filas actualizadas (0 si no existe).
+     * @throws IllegalArgumentException Si algún campo no existe o no se puede actualizar.
+     */
+    int updateById(Long id, Map<String, ?> cambios);
+
     Optional<T> findById(Long id);
     List<T> findAll();
     Long count();
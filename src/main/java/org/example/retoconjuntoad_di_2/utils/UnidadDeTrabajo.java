@@ -0,0 +1,301 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.exception.LockAcquisitionException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Unidad de trabajo: ejecuta varias operaciones de repositorio en una misma sesión y
+ * transacción, con un único commit y una única conexión del pool.
+ * <p>
+ * Mientras se ejecuta el trabajo, la sesión queda asociada al hilo actual y los
+ * repositorios se unen a ella en lugar de abrir la suya (ver {@link #leer} y
+ * {@link #escribir}). Las unidades anidadas también se unen a la exterior, que es la
+ * única que confirma o deshace. Ejemplo:
+ * <pre>{@code
+ * UnidadDeTrabajo.ejecutar(session -> {
+ *     Pelicula pelicula = peliculaRepository.save(nueva);
+ *     for (Copia copia : copias) {
+ *         copia.setPelicula(pelicula);
+ *         copiaRepository.save(copia);
+ *     }
+ *     return pelicula;
+ * });
+ * }</pre>
+ * Lo que deba hacerse solo si los cambios llegan a la base de datos (p.ej. invalidar una
+ * caché) se registra con {@link #alConfirmar}, que espera al commit de la unidad exterior.
+ * <p>
+ * Si la transacción falla por un interbloqueo o una espera de bloqueo agotada, se deshace
+ * y el trabajo completo se repite en una sesión nueva. Los errores de conexión no se
+ * reintentan: pueden llegar después de un commit que sí se completó, y repetir el trabajo
+ * duplicaría sus inserciones.
+ * Por eso el trabajo debe poder repetirse: conviene crear dentro de él las entidades
+ * nuevas en lugar de reutilizar las de un intento anterior.
+ */
+public class UnidadDeTrabajo {
+
+    /**
+     * Veces que se repite un trabajo que ha fallado por un error transitorio.
+     */
+    public static final int REINTENTOS = 3;
+
+    private static final long ESPERA_INICIAL_MS = 50; // Espera antes del primer reintento; se duplica en cada uno.
+    private static final Set<Integer> ERRORES_TRANSITORIOS_MYSQL = Set.of(
+            1213, // ER_LOCK_DEADLOCK
+            1205  // ER_LOCK_WAIT_TIMEOUT
+    );
+
+    private static final ThreadLocal<Session> sesionActual = new ThreadLocal<>();
+
+    private UnidadDeTrabajo() {}
+
+    /**
+     * Trabajo que se ejecuta con una sesión abierta.
+     */
+    @FunctionalInterface
+    public interface Trabajo<V> {
+        V ejecutar(Session session);
+    }
+
+    /**
+     * Ejecuta un trabajo en una unidad de trabajo sobre la base de datos de la aplicación.
+     *
+     * @param trabajo Operaciones a ejecutar.
+     * @return El resultado del trabajo.
+     */
+    public static <V> V ejecutar(Trabajo<V> trabajo) {
+        return ejecutar(DataProvider.getSessionFactory(), 0, trabajo);
+    }
+
+    /**
+     * Ejecuta un trabajo en una unidad de trabajo.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param trabajo        Operaciones a ejecutar.
+     * @return El resultado del trabajo.
+     */
+    public static <V> V ejecutar(SessionFactory sessionFactory, Trabajo<V> trabajo) {
+        return ejecutar(sessionFactory, 0, trabajo);
+    }
+
+    /**
+     * Ejecuta un trabajo en una unidad de trabajo, agrupando las escrituras en lotes JDBC.
+     * Si ya hay una unidad en curso en este hilo, el trabajo se une a ella.
+     *
+     * @param sessionFactory Fábrica de sesiones de Hibernate.
+     * @param tamanoLote     Sentencias por lote JDBC, o 0 para usar el de la configuración.
+     * @param trabajo        Operaciones a ejecutar.
+     * @return El resultado del trabajo.
+     * @throws ConflictoConcurrenciaException Si alguna fila ha sido modificada o borrada por otro usuario.
+     */
+    public static <V> V ejecutar(SessionFactory sessionFactory, int tamanoLote, Trabajo<V> trabajo) {
+        Session enCurso = enCurso(sessionFactory);
+        if (enCurso != null) {
+            return trabajo.ejecutar(enCurso);
+        }
+
+        for (int intento = 0; ; intento++) {
+            try {
+                return ejecutarUnaVez(sessionFactory, tamanoLote, trabajo);
+            } catch (RuntimeException e) {
+                if (intento < REINTENTOS && esTransitorio(e)) {
+                    esperar(intento, e);
+                    continue;
+                }
+                if (ConflictoConcurrenciaException.esConflicto(e) && !(e instanceof ConflictoConcurrenciaException)) {
+                    throw new ConflictoConcurrenciaException(
+                            "Los datos han sido modificados o borrados por otro usuario.", e);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Para los repositorios: ejecuta una lectura en la unidad de trabajo en curso,
+     * o en una sesión propia de solo lectura si no hay ninguna.
+     * <p>
+     * En la sesión de solo lectura las entidades cargadas no guardan la copia de su estado
+     * que Hibernate usa para detectar cambios, y no se comprueba si hay algo que volcar
+     * antes de cada consulta. Si la base de datos tiene pool de solo lectura
+     * ({@link DataProvider#getPoolLectura}), la conexión sale de él.
+     * Dentro de una unidad de trabajo se usa su sesión normal, porque lo leído puede
+     * modificarse a continuación.
+     *
+     * @param sessionFactory Fábrica de sesiones del repositorio.
+     * @param trabajo        Consulta a ejecutar.
+     * @return El resultado de la consulta.
+     */
+    public static <V> V leer(SessionFactory sessionFactory, Trabajo<V> trabajo) {
+        Session enCurso = enCurso(sessionFactory);
+        if (enCurso != null) {
+            return trabajo.ejecutar(enCurso);
+        }
+
+        DataSource poolLectura = DataProvider.getPoolLectura(sessionFactory);
+        if (poolLectura == null) {
+            try (Session session = sessionFactory.openSession()) {
+                soloLectura(session);
+                return trabajo.ejecutar(session);
+            }
+        }
+        try (Connection conexion = poolLectura.getConnection();
+             Session session = sessionFactory.withOptions().connection(conexion).openSession()) {
+            soloLectura(session);
+            return trabajo.ejecutar(session);
+        } catch (SQLException e) {
+            throw new JDBCConnectionException("No se pudo obtener una conexión de solo lectura", e);
+        }
+    }
+
+    /**
+     * Para los repositorios: ejecuta una escritura en la unidad de trabajo en curso
+     * (se confirmará con ella), o en una sesión y transacción propias si no hay ninguna.
+     *
+     * @param sessionFactory Fábrica de sesiones del repositorio.
+     * @param trabajo        Escritura a ejecutar.
+     * @return El resultado de la escritura.
+     */
+    public static <V> V escribir(SessionFactory sessionFactory, Trabajo<V> trabajo) {
+        Session enCurso = enCurso(sessionFactory);
+        if (enCurso != null) {
+            return trabajo.ejecutar(enCurso);
+        }
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            try {
+                V resultado = trabajo.ejecutar(session);
+                session.getTransaction().commit();
+                return resultado;
+            } catch (RuntimeException e) {
+                deshacer(session, e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Para los repositorios: ejecuta una acción después de que se confirme la transacción
+     * de la sesión, ya sea la propia de {@link #escribir} o la de la unidad de trabajo a la
+     * que se ha unido. Si la transacción se deshace, la acción no se ejecuta; si la unidad
+     * se reintenta, el nuevo intento vuelve a registrarla.
+     *
+     * @param session Sesión recibida en el trabajo de escritura.
+     * @param accion  Acción a ejecutar tras el commit (p.ej. invalidar una caché).
+     */
+    public static void alConfirmar(Session session, Runnable accion) {
+        session.getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int estado) {
+                if (estado == Status.STATUS_COMMITTED) {
+                    accion.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Indica si una excepción, o alguna de sus causas, es un error transitorio que
+     * merece la pena reintentar: interbloqueos y esperas de bloqueo agotadas (MySQL 1213 y 1205,
+     * SQLSTATE 40001). En ambos casos la base de datos ya ha deshecho la transacción, así que
+     * repetirla no puede duplicar nada.
+     *
+     * @param ex Excepción a comprobar.
+     * @return true si repetir la transacción puede tener éxito.
+     */
+    public static boolean esTransitorio(Throwable ex) {
+        for (Throwable causa = ex; causa != null; causa = causa.getCause()) {
+            if (causa instanceof LockAcquisitionException
+                    || causa instanceof PessimisticLockException
+                    || causa instanceof LockTimeoutException) {
+                return true;
+            }
+            if (causa instanceof SQLException sql
+                    && (ERRORES_TRANSITORIOS_MYSQL.contains(sql.getErrorCode()) || "40001".equals(sql.getSQLState()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Configura una sesión solo para consultas: entidades de solo lectura y sin volcados automáticos.
+     */
+    private static void soloLectura(Session session) {
+        session.setDefaultReadOnly(true);
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+    }
+
+    /**
+     * Sesión de la unidad de trabajo en curso, si es de la misma fábrica de sesiones.
+     */
+    private static Session enCurso(SessionFactory sessionFactory) {
+        Session session = sesionActual.get();
+        return session != null && session.getSessionFactory() == sessionFactory ? session : null;
+    }
+
+    private static <V> V ejecutarUnaVez(SessionFactory sessionFactory, int tamanoLote, Trabajo<V> trabajo) {
+        Session anterior = sesionActual.get(); // Unidad de otra fábrica de sesiones, si la hay
+        try (Session session = sessionFactory.openSession()) {
+            if (tamanoLote > 0) {
+                session.setJdbcBatchSize(tamanoLote);
+            }
+            sesionActual.set(session);
+            session.beginTransaction();
+            try {
+                V resultado = trabajo.ejecutar(session);
+                session.getTransaction().commit();
+                return resultado;
+            } catch (RuntimeException e) {
+                deshacer(session, e);
+                throw e;
+            }
+        } finally {
+            if (anterior != null) {
+                sesionActual.set(anterior);
+            } else {
+                sesionActual.remove();
+            }
+        }
+    }
+
+    private static void deshacer(Session session, RuntimeException causa) {
+        try {
+            if (session.getTransaction().isActive()) {
+                session.getTransaction().rollback();
+            }
+        } catch (RuntimeException e) {
+            causa.addSuppressed(e); // Con la conexión perdida tampoco se puede deshacer
+        }
+    }
+
+    /**
+     * Espera antes de reintentar, con espera exponencial y un componente aleatorio
+     * para que dos transacciones interbloqueadas no vuelvan a chocar a la vez.
+     */
+    private static void esperar(int intento, RuntimeException causa) {
+        long espera = ESPERA_INICIAL_MS << intento;
+        try {
+            Thread.sleep(espera + ThreadLocalRandom.current().nextLong(espera));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw causa;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de vistas FXML ya cargadas.
+ * Cada FXML se analiza una sola vez; las siguientes aperturas reutilizan el mismo árbol de nodos,
+ * la misma Scene y el mismo controlador, que se reinicia antes de mostrarse si es {@link Reiniciable}.
+ * Las vistas más usadas se pueden precargar al arrancar con {@link #precargar(String...)}.
+ * El registro solo se usa desde el hilo de JavaFX.
+ */
+public class Vistas {
+
+    private static final Map<String, Vista<?>> vistas = new HashMap<>();
+
+    private Vistas() {}
+
+    /**
+     * Vista cargada: raíz, controlador, Scene y, si se abre como diálogo, su ventana.
+     *
+     * @param <C> Tipo del controlador.
+     */
+    @Getter
+    public static class Vista<C> {
+        private final Parent raiz;
+        private final C controlador;
+        private final Scene escena;
+        private Stage dialogo; // Ventana modal, creada la primera vez que se abre como diálogo.
+
+        private Vista(Parent raiz, C controlador) {
+            this.raiz = raiz;
+            this.controlador = controlador;
+            this.escena = new Scene(raiz);
+        }
+
+        /**
+         * Devuelve la ventana modal de la vista, creándola la primera vez.
+         * La ventana se reutiliza en las siguientes aperturas; cerrarla solo la oculta.
+         *
+         * @param titulo Título de la ventana.
+         * @return La ventana, lista para showAndWait.
+         */
+        public Stage dialogo(String titulo) {
+            if (dialogo == null) {
+                dialogo = new Stage();
+                dialogo.initOwner(JavaFXUtil.getStage());
+                dialogo.initModality(Modality.WINDOW_MODAL);
+                dialogo.setScene(escena);
+            }
+            dialogo.setTitle(titulo);
+            return dialogo;
+        }
+    }
+
+    /**
+     * Carga los FXML indicados antes de que se abran, para que su primera apertura sea inmediata.
+     * FXMLLoader crea el controlador y llama a su initialize durante la carga, y la Scene también
+     * debe crearse en el hilo de JavaFX, así que la precarga se hace en ese hilo: una vista en cada
+     * vuelta del bucle de eventos, para que la interfaz siga respondiendo entre una y otra.
+     * Puede llamarse desde cualquier hilo.
+     *
+     * @param fxmls Rutas de los FXML a precargar.
+     */
+    public static void precargar(String... fxmls) {
+        Iterator<String> pendientes = List.of(fxmls).iterator();
+        Platform.runLater(() -> precargarSiguiente(pendientes));
+    }
+
+    private static void precargarSiguiente(Iterator<String> pendientes) {
+        if (!pendientes.hasNext()) {
+            return;
+        }
+        String fxml = pendientes.next();
+        if (!vistas.containsKey(fxml)) {
+            try {
+                vistas.put(fxml, cargar(fxml));
+            } catch (IOException | RuntimeException e) {
+                // Se volverá a intentar (y se informará del error) al abrirla con obtener
+            }
+        }
+        Platform.runLater(() -> precargarSiguiente(pendientes));
+    }
+
+    /**
+     * Devuelve la vista del FXML indicado, cargándola si aún no está en el registro,
+     * y reinicia su controlador. Debe llamarse desde el hilo de JavaFX.
+     *
+     * @param fxml Ruta del FXML.
+     * @return La vista lista para mostrarse.
+     * @throws IOException Si no se puede cargar el FXML.
+     */
+    @SuppressWarnings("unchecked")
+    public static <C> Vista<C> obtener(String fxml) throws IOException {
+        Vista<C> vista = (Vista<C>) vistas.get(fxml);
+        if (vista == null) {
+            vista = cargar(fxml);
+            vistas.put(fxml, vista);
+        }
+
+        if (vista.getControlador() instanceof Reiniciable reiniciable) {
+            reiniciable.reiniciar();
+        }
+        return vista;
+    }
+
+    private static <C> Vista<C> cargar(String fxml) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Vistas.class.getResource(fxml));
+        Parent raiz = loader.load();
+        return new Vista<>(raiz, loader.getController());
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.MetricasPool;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Base de datos H2 en memoria con la misma configuración de Hibernate que la aplicación
+ * (hibernate.cfg.xml, caché de segundo nivel, lotes JDBC y pool HikariCP), sembrada
+ * con un número configurable de usuarios, películas y copias.
+ */
+public class BaseDatosBenchmark implements AutoCloseable {
+
+    private final HikariDataSource dataSource;
+    private final SessionFactory sessionFactory;
+    private final List<User> usuarios = new ArrayList<>();
+    private final List<Pelicula> peliculas = new ArrayList<>();
+
+    /**
+     * Crea una base de datos vacía con el esquema de la aplicación.
+     */
+    public BaseDatosBenchmark() {
+        this(new Configuration().configure());
+    }
+
+    /**
+     * Crea una base de datos vacía a partir de una configuración de Hibernate ya preparada,
+     * para los benchmarks que necesitan cambiar algún ajuste.
+     *
+     * @param configuration Configuración base (normalmente la de hibernate.cfg.xml).
+     */
+    public BaseDatosBenchmark(Configuration configuration) {
+        String url = "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        dataSource = DataProvider.crearPool(url, "sa", "", new MetricasPool());
+
+        configuration.setProperty("hibernate.show_sql", "false");
+        configuration.setProperty("hibernate.format_sql", "false");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.getProperties().put("hibernate.connection.datasource", dataSource);
+        sessionFactory = configuration.buildSessionFactory();
+    }
+
+    /**
+     * Inserta los datos de prueba. Cada usuario recibe el mismo número de copias,
+     * repartidas entre todas las películas.
+     *
+     * @param numUsuarios       Número de usuarios.
+     * @param numPeliculas      Número de películas del catálogo.
+     * @param copiasPorUsuario  Número de copias de cada usuario.
+     */
+    public void sembrar(int numUsuarios, int numPeliculas, int copiasPorUsuario) {
+        String[] estados = {"Nueva", "Buena", "Usada", "Deteriorada"};
+        String[] soportes = {"DVD", "Blu-ray", "VHS"};
+        String[] generos = {"Drama", "Comedia", "Acción", "Terror", "Animación"};
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(500);
+            session.beginTransaction();
+
+            for (int i = 0; i < numPeliculas; i++) {
+                Pelicula pelicula = new Pelicula();
+                pelicula.setTitulo("Película " + i);
+                pelicula.setGenero(generos[i % generos.length]);
+                pelicula.setAnio((short) (1950 + i % 75));
+                pelicula.setDirector("Director " + (i % 300));
+                pelicula.setDescripcion("Descripción de la película " + i);
+                session.insert(pelicula);
+                peliculas.add(pelicula);
+            }
+
+            for (int u = 0; u < numUsuarios; u++) {
+                User user = new User();
+                user.setNombreUsuario("usuario" + u);
+                user.setContrasena("clave" + u);
+                user.setEsAdmin(u == 0);
+                session.insert(user);
+                usuarios.add(user);
+
+                for (int c = 0; c < copiasPorUsuario; c++) {
+                    Copia copia = new Copia();
+                    copia.setUser(user);
+                    copia.setPelicula(peliculas.get((u * 31 + c) % numPeliculas));
+                    copia.setEstado(estados[c % estados.length]);
+                    copia.setSoporte(soportes[c % soportes.length]);
+                    session.insert(copia);
+                }
+            }
+
+            session.getTransaction().commit();
+        }
+    }
+
+    public SessionFactory getSessionFactory() {
+        return sessionFactory;
+    }
+
+    public List<User> getUsuarios() {
+        return usuarios;
+    }
+
+    public List<Pelicula> getPeliculas() {
+        return peliculas;
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+        dataSource.close();
+    }
+}
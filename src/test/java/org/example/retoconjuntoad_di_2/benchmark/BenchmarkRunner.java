@@ -0,0 +1,33 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada de los benchmarks JMH.
+ * Se ejecuta con el perfil de Maven "benchmark" y activa siempre el profiler de GC,
+ * de modo que cada resultado incluye la tasa de asignación (gc.alloc.rate.norm, bytes/op).
+ * Los resultados se guardan además en target/jmh-result.json para comparar entre versiones.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String incluir = args.length > 0 && !args[0].isBlank() ? args[0] : ".*";
+
+        Options opciones = new OptionsBuilder()
+                .include(incluir)
+                .addProfiler(GCProfiler.class)
+                .forks(1)
+                .warmupIterations(3)
+                .measurementIterations(5)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result.json")
+                .build();
+
+        new Runner(opciones).run();
+    }
+}
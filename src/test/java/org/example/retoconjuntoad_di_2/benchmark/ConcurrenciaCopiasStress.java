@@ -0,0 +1,100 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.utils.ConflictoConcurrenciaException;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Prueba de carga del bloqueo optimista: varios "puestos" editan a la vez las mismas copias
+ * con el flujo de la aplicación (cargar, modificar, guardar y, si hay conflicto, recargar y reintentar).
+ * <p>
+ * Al terminar comprueba que no se ha perdido ninguna actualización: cada guardado correcto
+ * incrementa la versión de la fila exactamente en uno, así que la versión final de cada copia
+ * debe coincidir con el número de guardados que han tenido éxito sobre ella (si no, lanza
+ * IllegalStateException). También muestra cuántos conflictos se han producido y el tiempo
+ * medio por guardado, que no incluye esperas por bloqueos porque ninguna lectura bloquea filas.
+ * <p>
+ * Ejecutar con:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.example.retoconjuntoad_di_2.benchmark.ConcurrenciaCopiasStress}
+ */
+public class ConcurrenciaCopiasStress {
+
+    private static final int HILOS = 16;              // Puestos editando a la vez.
+    private static final int COPIAS_EN_DISPUTA = 4;   // Copias que editan todos los puestos.
+    private static final int EDICIONES_POR_HILO = 500; // Guardados correctos que debe lograr cada puesto.
+
+    public static void main(String[] args) throws Exception {
+        try (BaseDatosBenchmark bd = new BaseDatosBenchmark()) {
+            bd.sembrar(1, 10, COPIAS_EN_DISPUTA);
+            CopiaRepository repository = new CopiaRepository(bd.getSessionFactory());
+            List<Integer> ids = repository.findAll().stream().map(Copia::getId).toList();
+
+            AtomicLongArray exitos = new AtomicLongArray(ids.size());
+            AtomicLong conflictos = new AtomicLong();
+            CountDownLatch salida = new CountDownLatch(1);
+
+            ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                int hilo = h;
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    for (int i = 0; i < EDICIONES_POR_HILO; i++) {
+                        int indice = (hilo + i) % ids.size();
+                        Copia copia = repository.findById(ids.get(indice).longValue()).orElseThrow();
+                        while (true) {
+                            copia.setEstado("Puesto " + hilo + " edición " + i);
+                            try {
+                                repository.save(copia);
+                                exitos.incrementAndGet(indice);
+                                break;
+                            } catch (ConflictoConcurrenciaException e) {
+                                // Otro puesto guardó antes: se recarga y se vuelve a aplicar el cambio
+                                conflictos.incrementAndGet();
+                                copia = repository.findById(ids.get(indice).longValue()).orElseThrow();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            long nanos = System.nanoTime() - inicio;
+            executor.shutdown();
+
+            long totalExitos = 0;
+            try (Session session = bd.getSessionFactory().openSession()) {
+                for (int c = 0; c < ids.size(); c++) {
+                    Long version = session.get(Copia.class, ids.get(c)).getVersion();
+                    long esperada = exitos.get(c);
+                    totalExitos += esperada;
+                    if (version != esperada) {
+                        throw new IllegalStateException("Se han perdido actualizaciones de la copia " + ids.get(c)
+                                + ": versión " + version + " tras " + esperada + " guardados correctos");
+                    }
+                }
+            }
+
+            System.out.printf("%d guardados en %.1f s (%.0f guardados/s, %.2f ms por guardado y puesto)%n",
+                    totalExitos, nanos / 1e9, totalExitos / (nanos / 1e9),
+                    nanos / 1e6 * HILOS / (totalExitos + conflictos.get()));
+            System.out.printf("Conflictos detectados y reintentados: %d (%.1f %% de los intentos)%n",
+                    conflictos.get(), 100.0 * conflictos.get() / (totalExitos + conflictos.get()));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.CopiaResumen;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de preparar una consulta HQL en cada llamada, con varios hilos a la vez:
+ * HQL escrita en línea sin caché de planes (se analiza y traduce cada vez), HQL en línea
+ * con la caché de planes, y las consultas con nombre que usan ahora los repositorios.
+ * Los datos son mínimos para que el tiempo de la base de datos no tape la diferencia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class ConsultasNombradasBenchmark {
+
+    private static final String HQL_COUNT_BY_USER =
+            "select count(c) from Copia c where c.user.id = :userId";
+    private static final String HQL_PAGE_BY_USER =
+            "select new org.example.retoconjuntoad_di_2.model.copia.CopiaResumen(" +
+                    "c.id, p.titulo, p.genero, p.anio, c.estado, c.soporte) " +
+                    "from Copia c join c.pelicula p " +
+                    "where c.user.id = :userId and c.id > :afterId order by c.id";
+
+    private BaseDatosBenchmark conCache;
+    private BaseDatosBenchmark sinCache;
+    private Integer idUsuario;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        conCache = new BaseDatosBenchmark();
+        conCache.sembrar(1, 10, 20);
+        idUsuario = conCache.getUsuarios().get(0).getId();
+
+        Configuration configuracion = new Configuration().configure();
+        configuracion.setProperty("hibernate.query.plan_cache_enabled", "false");
+        sinCache = new BaseDatosBenchmark(configuracion);
+        sinCache.sembrar(1, 10, 20);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        conCache.close();
+        sinCache.close();
+    }
+
+    @Benchmark
+    public Long countHqlSinCachePlanes() {
+        return countInline(sinCache.getSessionFactory());
+    }
+
+    @Benchmark
+    public Long countHqlConCachePlanes() {
+        return countInline(conCache.getSessionFactory());
+    }
+
+    @Benchmark
+    public Long countConsultaNombrada() {
+        try (Session session = conCache.getSessionFactory().openSession()) {
+            return session.createNamedQuery("Copia.countByUser", Long.class)
+                    .setParameter("userId", idUsuario)
+                    .getSingleResult();
+        }
+    }
+
+    @Benchmark
+    public List<CopiaResumen> paginaHqlSinCachePlanes() {
+        return paginaInline(sinCache.getSessionFactory());
+    }
+
+    @Benchmark
+    public List<CopiaResumen> paginaHqlConCachePlanes() {
+        return paginaInline(conCache.getSessionFactory());
+    }
+
+    @Benchmark
+    public List<CopiaResumen> paginaConsultaNombrada() {
+        try (Session session = conCache.getSessionFactory().openSession()) {
+            return session.createNamedQuery("Copia.findPageByUser", CopiaResumen.class)
+                    .setParameter("userId", idUsuario)
+                    .setParameter("afterId", 0)
+                    .setMaxResults(20)
+                    .list();
+        }
+    }
+
+    private Long countInline(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(HQL_COUNT_BY_USER, Long.class)
+                    .setParameter("userId", idUsuario)
+                    .getSingleResult();
+        }
+    }
+
+    private List<CopiaResumen> paginaInline(SessionFactory sessionFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(HQL_PAGE_BY_USER, CopiaResumen.class)
+                    .setParameter("userId", idUsuario)
+                    .setParameter("afterId", 0)
+                    .setMaxResults(20)
+                    .list();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.utils.GeneradorIds;
+import org.example.retoconjuntoad_di_2.utils.UnidadDeTrabajo;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copias insertadas por segundo con IDs IDENTITY (cada INSERT se ejecuta suelto para
+ * conocer su ID) y con IDs por bloques pooled-lo (los INSERT van en lotes JDBC), tanto
+ * con la sesión normal dentro de una unidad de trabajo como con la StatelessSession
+ * que usa la importación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class InsercionIdsBenchmark {
+
+    private static final int FILAS = 1000;      // Copias insertadas en cada invocación.
+    private static final int TAMANO_LOTE = 50;  // Sentencias por lote JDBC.
+
+    @Param({"identity", "pooled"})
+    private String estrategia;
+
+    private BaseDatosBenchmark baseDatos;
+    private CopiaRepository copiaRepository;
+    private User user;
+    private List<Pelicula> catalogo;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Configuration configuracion = new Configuration().configure();
+        if (estrategia.equals("pooled")) {
+            GeneradorIds.configurarBloques(configuracion);
+        }
+        baseDatos = new BaseDatosBenchmark(configuracion);
+        if (estrategia.equals("pooled")) {
+            GeneradorIds.sembrar(baseDatos.getSessionFactory());
+        }
+        baseDatos.sembrar(1, 100, 0);
+        copiaRepository = new CopiaRepository(baseDatos.getSessionFactory());
+        user = baseDatos.getUsuarios().get(0);
+        catalogo = baseDatos.getPeliculas();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        baseDatos.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public int unidadDeTrabajo() {
+        return UnidadDeTrabajo.ejecutar(baseDatos.getSessionFactory(), TAMANO_LOTE, session -> {
+            for (int i = 0; i < FILAS; i++) {
+                copiaRepository.save(nuevaCopia(i));
+                if ((i + 1) % TAMANO_LOTE == 0) {
+                    session.flush();
+                    session.clear(); // Como la importación: sin acumular entidades
+                }
+            }
+            return FILAS;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public int statelessSession() {
+        try (StatelessSession session = baseDatos.getSessionFactory().openStatelessSession()) {
+            session.setJdbcBatchSize(TAMANO_LOTE);
+            session.beginTransaction();
+            for (int i = 0; i < FILAS; i++) {
+                session.insert(nuevaCopia(i));
+            }
+            session.getTransaction().commit();
+        }
+        return FILAS;
+    }
+
+    private Copia nuevaCopia(int i) {
+        Copia copia = new Copia();
+        copia.setUser(user);
+        copia.setPelicula(catalogo.get(i % catalogo.size()));
+        copia.setEstado("Nueva");
+        copia.setSoporte("DVD");
+        return copia;
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.model.user.User;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecturas de entidades con una sesión normal (con copia del estado cargado para detectar
+ * cambios y volcado automático antes de cada consulta) frente a la sesión de solo lectura
+ * que usan ahora los repositorios, para la tabla principal (copias del usuario) y el
+ * combo del catálogo (todas las películas).
+ * La memoria asignada por operación se ve con el profiler de GC de BenchmarkRunner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LecturaSoloLecturaBenchmark {
+
+    @Param({"1000", "20000"})
+    private int copiasPorUsuario;
+
+    private static final int PELICULAS = 2000;
+
+    private BaseDatosBenchmark baseDatos;
+    private CopiaRepository copiaRepository;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        baseDatos = new BaseDatosBenchmark();
+        baseDatos.sembrar(2, PELICULAS, copiasPorUsuario);
+        copiaRepository = new CopiaRepository(baseDatos.getSessionFactory());
+        user = baseDatos.getUsuarios().get(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        baseDatos.close();
+    }
+
+    @Benchmark
+    public List<Copia> copiasSesionNormal() {
+        try (Session session = baseDatos.getSessionFactory().openSession()) {
+            return session.createNamedQuery("Copia.findByUser", Copia.class)
+                    .setParameter("user", user)
+                    .list();
+        }
+    }
+
+    @Benchmark
+    public List<Copia> copiasSoloLectura() {
+        return copiaRepository.findByUser(user);
+    }
+
+    @Benchmark
+    public List<Pelicula> catalogoSesionNormal() {
+        try (Session session = baseDatos.getSessionFactory().openSession()) {
+            return session.createNamedQuery("Pelicula.findAll", Pelicula.class).list();
+        }
+    }
+
+    /**
+     * Igual que UnidadDeTrabajo.leer, pero sin la caché de consultas de PeliculaRepository.findAll,
+     * que taparía el coste de cargar las filas.
+     */
+    @Benchmark
+    public List<Pelicula> catalogoSoloLectura() {
+        try (Session session = baseDatos.getSessionFactory().openSession()) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            return session.createNamedQuery("Pelicula.findAll", Pelicula.class).list();
+        }
+    }
+}
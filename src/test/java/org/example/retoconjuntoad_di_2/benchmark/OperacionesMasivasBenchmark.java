@@ -0,0 +1,60 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.user.User;
+
+import java.util.List;
+
+/**
+ * Compara el borrado de copias una a una (una sesión y una transacción por copia, como
+ * hacía la tabla principal) con las operaciones masivas por conjuntos de CopiaRepository:
+ * un DELETE y un UPDATE por cada bloque de IDs, todo en una única transacción.
+ * <p>
+ * Ejecutar con:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.example.retoconjuntoad_di_2.benchmark.OperacionesMasivasBenchmark}
+ */
+public class OperacionesMasivasBenchmark {
+
+    private static final int COPIAS = 10_000;       // Copias del usuario de prueba.
+    private static final int BORRADO_UNA_A_UNA = 1_000; // Copias borradas una a una (el resto tardaría demasiado).
+
+    public static void main(String[] args) {
+        try (BaseDatosBenchmark bd = new BaseDatosBenchmark()) {
+            bd.sembrar(1, 100, COPIAS);
+            CopiaRepository repository = new CopiaRepository(bd.getSessionFactory());
+            User user = bd.getUsuarios().get(0);
+            List<Integer> ids = repository.findByUser(user).stream().map(Copia::getId).sorted().toList();
+
+            // Una a una: una transacción por copia, con su marca de borrado y su DELETE
+            List<Integer> unaAUna = ids.subList(0, BORRADO_UNA_A_UNA);
+            long inicio = System.nanoTime();
+            for (Integer id : unaAUna) {
+                repository.removeById(id.longValue());
+            }
+            informar("Borrado una a una", unaAUna.size(), System.nanoTime() - inicio);
+
+            // En bloque: cambio de estado y soporte de todas las restantes
+            List<Integer> restantes = ids.subList(BORRADO_UNA_A_UNA, ids.size());
+            inicio = System.nanoTime();
+            int actualizadas = repository.actualizarVarias(user.getId(), restantes, "Usada", "DVD");
+            informar("Actualización masiva", actualizadas, System.nanoTime() - inicio);
+
+            // En bloque: borrado de todas las restantes
+            inicio = System.nanoTime();
+            int borradas = repository.borrarVarias(user.getId(), restantes);
+            informar("Borrado masivo", borradas, System.nanoTime() - inicio);
+
+            if (actualizadas != restantes.size() || borradas != restantes.size()
+                    || repository.countByUser(user.getId()) != 0) {
+                throw new IllegalStateException("El número de filas afectadas no coincide: "
+                        + actualizadas + " actualizadas y " + borradas + " borradas de " + restantes.size());
+            }
+        }
+    }
+
+    private static void informar(String operacion, int filas, long nanos) {
+        System.out.printf("%-22s %6d filas en %8.1f ms (%.3f ms por fila)%n",
+                operacion, filas, nanos / 1e6, nanos / 1e6 / filas);
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.retoconjuntoad_di_2.utils.DataProvider;
+import org.example.retoconjuntoad_di_2.utils.MetricasPool;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara la latencia de adquisición de conexiones entre el pool interno de Hibernate
+ * (el que se usaba antes) y el pool HikariCP de DataProvider, sobre una base H2 en memoria.
+ * <p>
+ * Ejecutar con:
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.example.retoconjuntoad_di_2.benchmark.PoolAcquireBenchmark}
+ */
+public class PoolAcquireBenchmark {
+
+    private static final String URL = "jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1";
+    private static final int HILOS = 16;                 // Hilos pidiendo conexiones a la vez.
+    private static final int PRESTAMOS_POR_HILO = 20_000; // Conexiones pedidas por cada hilo.
+    private static final int CALENTAMIENTO = 2_000;       // Préstamos descartados por hilo.
+
+    public static void main(String[] args) throws Exception {
+        // Pool interno de Hibernate, configurado como estaba antes en hibernate.cfg.xml.
+        Configuration interno = new Configuration()
+                .setProperty("hibernate.connection.url", URL)
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.connection.pool_size", "10");
+        try (SessionFactory sf = interno.buildSessionFactory()) {
+            medir("Pool interno de Hibernate", sf);
+        }
+
+        // Pool HikariCP, creado igual que en la aplicación.
+        try (HikariDataSource dataSource = DataProvider.crearPool(URL, "sa", "", new MetricasPool())) {
+            Configuration hikari = new Configuration();
+            hikari.getProperties().put("hibernate.connection.datasource", dataSource);
+            try (SessionFactory sf = hikari.buildSessionFactory()) {
+                medir("HikariCP", sf);
+            }
+        }
+    }
+
+    /**
+     * Pide y devuelve conexiones desde varios hilos a través del ConnectionProvider
+     * de Hibernate y muestra la latencia media y los percentiles.
+     */
+    private static void medir(String nombre, SessionFactory sf) throws Exception {
+        ConnectionProvider provider = sf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().requireService(ConnectionProvider.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        List<Future<long[]>> resultados = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            resultados.add(executor.submit(() -> {
+                long[] tiempos = new long[PRESTAMOS_POR_HILO];
+                for (int i = 0; i < CALENTAMIENTO + PRESTAMOS_POR_HILO; i++) {
+                    long inicio = System.nanoTime();
+                    Connection connection = provider.getConnection();
+                    long fin = System.nanoTime();
+                    provider.closeConnection(connection);
+                    if (i >= CALENTAMIENTO) {
+                        tiempos[i - CALENTAMIENTO] = fin - inicio;
+                    }
+                }
+                return tiempos;
+            }));
+        }
+
+        long[] todos = new long[HILOS * PRESTAMOS_POR_HILO];
+        int pos = 0;
+        for (Future<long[]> resultado : resultados) {
+            long[] tiempos = resultado.get();
+            System.arraycopy(tiempos, 0, todos, pos, tiempos.length);
+            pos += tiempos.length;
+        }
+        executor.shutdown();
+
+        Arrays.sort(todos);
+        double media = Arrays.stream(todos).average().orElse(0);
+        System.out.printf("%-28s media %8.1f µs | p50 %8.1f µs | p99 %8.1f µs | máx %8.1f µs%n",
+                nombre,
+                media / 1_000,
+                todos[todos.length / 2] / 1_000.0,
+                todos[(int) (todos.length * 0.99)] / 1_000.0,
+                todos[todos.length - 1] / 1_000.0);
+    }
+}
@@ -0,0 +1,168 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaResumen;
+import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
+import org.example.retoconjuntoad_di_2.model.user.Credenciales;
+import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.model.user.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la capa de repositorios sobre H2 en memoria.
+ * Mide rendimiento (ops/s) y latencia (percentiles con SampleTime); con el profiler
+ * de GC de BenchmarkRunner también la memoria asignada por operación, que es donde
+ * se notan las cargas EAGER de grafos completos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RepositoryBenchmark {
+
+    @Param({"1000", "50000"})
+    private int copiasPorUsuario;
+
+    @Param({"1000"})
+    private int peliculas;
+
+    private static final int USUARIOS = 5;
+
+    private BaseDatosBenchmark baseDatos;
+    private CopiaRepository copiaRepository;
+    private PeliculaRepository peliculaRepository;
+    private UserRepository userRepository;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        baseDatos = new BaseDatosBenchmark();
+        baseDatos.sembrar(USUARIOS, peliculas, copiasPorUsuario);
+        copiaRepository = new CopiaRepository(baseDatos.getSessionFactory());
+        peliculaRepository = new PeliculaRepository(baseDatos.getSessionFactory());
+        userRepository = new UserRepository(baseDatos.getSessionFactory());
+        user = baseDatos.getUsuarios().get(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        baseDatos.close();
+    }
+
+    /**
+     * Copia recién insertada antes de cada invocación de {@link #delete}.
+     */
+    @State(Scope.Thread)
+    public static class CopiaParaBorrar {
+        Copia copia;
+
+        @Setup(Level.Invocation)
+        public void insertar(RepositoryBenchmark estado) {
+            copia = estado.copiaRepository.save(estado.nuevaCopia());
+        }
+    }
+
+    private Copia nuevaCopia() {
+        List<Pelicula> catalogo = baseDatos.getPeliculas();
+        Copia copia = new Copia();
+        copia.setUser(user);
+        copia.setPelicula(catalogo.get(ThreadLocalRandom.current().nextInt(catalogo.size())));
+        copia.setEstado("Nueva");
+        copia.setSoporte("DVD");
+        return copia;
+    }
+
+    @Benchmark
+    public List<Copia> findByUser() {
+        return copiaRepository.findByUser(user);
+    }
+
+    @Benchmark
+    public List<CopiaResumen> findPageByUser() {
+        return copiaRepository.findPageByUser(user.getId(), null, 200);
+    }
+
+    @Benchmark
+    public List<Pelicula> findAllPeliculas() {
+        return peliculaRepository.findAll();
+    }
+
+    @Benchmark
+    public Optional<Copia> findById() {
+        long id = ThreadLocalRandom.current().nextLong(1, (long) USUARIOS * copiasPorUsuario);
+        return copiaRepository.findById(id);
+    }
+
+    @Benchmark
+    public Long count() {
+        return copiaRepository.count();
+    }
+
+    @Benchmark
+    public Long countByUser() {
+        return copiaRepository.countByUser(user.getId());
+    }
+
+    @Benchmark
+    public Optional<User> findByNombreUsuario() {
+        return userRepository.findByNombreUsuario("usuario" + ThreadLocalRandom.current().nextInt(USUARIOS));
+    }
+
+    @Benchmark
+    public Optional<Credenciales> findCredenciales() {
+        return userRepository.findCredenciales("usuario" + ThreadLocalRandom.current().nextInt(USUARIOS));
+    }
+
+    @Benchmark
+    public Copia save() {
+        return copiaRepository.save(nuevaCopia());
+    }
+
+    @Benchmark
+    public Optional<Copia> delete(CopiaParaBorrar pendiente) {
+        return copiaRepository.delete(pendiente.copia);
+    }
+
+    @Benchmark
+    public Optional<Copia> deleteById(CopiaParaBorrar pendiente) {
+        return copiaRepository.deleteById(pendiente.copia.getId().longValue());
+    }
+
+    @Benchmark
+    public boolean removeById(CopiaParaBorrar pendiente) {
+        return copiaRepository.removeById(pendiente.copia.getId().longValue());
+    }
+
+    /**
+     * Cambio de estado cargando la copia y guardándola después, como el diálogo de detalle.
+     */
+    @Benchmark
+    public Copia updateCargandoYGuardando() {
+        long id = ThreadLocalRandom.current().nextLong(1, (long) USUARIOS * copiasPorUsuario);
+        Copia copia = copiaRepository.findById(id).orElseThrow();
+        copia.setEstado(copia.getEstado().equals("Nueva") ? "Usada" : "Nueva");
+        return copiaRepository.save(copia);
+    }
+
+    @Benchmark
+    public int updateById() {
+        long id = ThreadLocalRandom.current().nextLong(1, (long) USUARIOS * copiasPorUsuario);
+        return copiaRepository.updateById(id, Map.of("estado", "Usada"));
+    }
+}
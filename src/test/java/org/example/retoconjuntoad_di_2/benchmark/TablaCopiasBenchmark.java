@@ -0,0 +1,128 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
+import org.example.retoconjuntoad_di_2.controllers.ColumnasCopia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaResumen;
+import org.example.retoconjuntoad_di_2.utils.IndicePrefijos;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la ruta de datos de la tabla principal, sin interfaz gráfica
+ * (solo se usan las colecciones y propiedades de javafx.base).
+ * Con el profiler de GC de BenchmarkRunner se obtienen ns/op y bytes/op, para comparar
+ * el filtrado anterior (toLowerCase por fila y pulsación) con el índice de prefijos,
+ * y medir la ordenación y el coste de las factorías de valores de celda.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TablaCopiasBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int filas;
+
+    @Param({"pel", "película 12"})
+    private String prefijo;
+
+    private static final int FILAS_VISIBLES = 40; // Celdas que pinta aproximadamente una pantalla.
+
+    private ObservableList<CopiaResumen> copias;
+    private FilteredList<CopiaResumen> filtradas;
+    private IndicePrefijos<CopiaResumen> indice;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        String[] titulos = {"Película", "El padrino", "Ágora", "Érase una vez", "Amélie", "Origen"};
+        List<CopiaResumen> datos = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            datos.add(new CopiaResumen(i + 1, titulos[i % titulos.length] + " " + i, "Drama",
+                    (short) (1950 + i % 75), "Buena", "DVD"));
+        }
+        copias = FXCollections.observableArrayList(datos);
+        filtradas = new FilteredList<>(copias);
+        indice = new IndicePrefijos<>(CopiaResumen::getTitulo);
+        indice.agregarTodos(copias);
+    }
+
+    /**
+     * Filtrado tal y como se hacía antes: se pasa a minúsculas el título de cada fila en cada pulsación.
+     */
+    @Benchmark
+    public int filtrarConToLowerCase() {
+        String filtro = prefijo.trim().toLowerCase();
+        filtradas.setPredicate(copia -> copia.getTitulo() != null
+                && copia.getTitulo().toLowerCase().startsWith(filtro));
+        return filtradas.size();
+    }
+
+    /**
+     * Filtrado actual: coincidencias obtenidas del índice y predicado de pertenencia.
+     */
+    @Benchmark
+    public int filtrarConIndice() {
+        Set<CopiaResumen> coincidencias = indice.buscar(prefijo);
+        filtradas.setPredicate(coincidencias::contains);
+        return filtradas.size();
+    }
+
+    /**
+     * Solo la búsqueda en el índice, sin reevaluar la FilteredList.
+     */
+    @Benchmark
+    public int buscarEnIndice() {
+        return indice.buscar(prefijo).size();
+    }
+
+    /**
+     * Construcción del índice completo (coste de cargar una colección).
+     */
+    @Benchmark
+    public IndicePrefijos<CopiaResumen> construirIndice() {
+        IndicePrefijos<CopiaResumen> nuevo = new IndicePrefijos<>(CopiaResumen::getTitulo);
+        nuevo.agregarTodos(copias);
+        return nuevo;
+    }
+
+    /**
+     * Ordenación por título, como al pulsar la cabecera de la columna.
+     */
+    @Benchmark
+    public CopiaResumen ordenarPorTitulo() {
+        SortedList<CopiaResumen> ordenadas = new SortedList<>(copias, Comparator.comparing(CopiaResumen::getTitulo));
+        return ordenadas.get(0);
+    }
+
+    /**
+     * Valores de celda de una pantalla de filas, como los pide la tabla al hacer scroll.
+     */
+    @Benchmark
+    public void valoresDeCelda(Blackhole bh) {
+        for (int i = 0; i < FILAS_VISIBLES; i++) {
+            CopiaResumen copia = copias.get(i);
+            bh.consume(ColumnasCopia.id(copia).getValue());
+            bh.consume(ColumnasCopia.titulo(copia).getValue());
+            bh.consume(ColumnasCopia.genero(copia).getValue());
+            bh.consume(ColumnasCopia.anio(copia).getValue());
+            bh.consume(ColumnasCopia.estado(copia).getValue());
+            bh.consume(ColumnasCopia.soporte(copia).getValue());
+        }
+    }
+}
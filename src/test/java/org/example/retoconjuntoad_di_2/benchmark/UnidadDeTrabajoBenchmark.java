@@ -0,0 +1,96 @@
+package org.example.retoconjuntoad_di_2.benchmark;
+
+import org.example.retoconjuntoad_di_2.model.copia.Copia;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.pelicula.Pelicula;
+import org.example.retoconjuntoad_di_2.model.pelicula.PeliculaRepository;
+import org.example.retoconjuntoad_di_2.model.user.User;
+import org.example.retoconjuntoad_di_2.utils.UnidadDeTrabajo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flujo de varios pasos "crear una película con sus primeras copias y cambiar después
+ * su estado", ejecutado con llamadas sueltas a los repositorios (una sesión, una conexión
+ * y un commit por llamada) y dentro de una única unidad de trabajo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UnidadDeTrabajoBenchmark {
+
+    @Param({"5", "50"})
+    private int copias;
+
+    private BaseDatosBenchmark baseDatos;
+    private PeliculaRepository peliculaRepository;
+    private CopiaRepository copiaRepository;
+    private User user;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        baseDatos = new BaseDatosBenchmark();
+        baseDatos.sembrar(1, 10, 0);
+        peliculaRepository = new PeliculaRepository(baseDatos.getSessionFactory());
+        copiaRepository = new CopiaRepository(baseDatos.getSessionFactory());
+        user = baseDatos.getUsuarios().get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        baseDatos.close();
+    }
+
+    @Benchmark
+    public List<Copia> llamadasSueltas() {
+        return crearYRevisar();
+    }
+
+    @Benchmark
+    public List<Copia> unidadDeTrabajo() {
+        return UnidadDeTrabajo.ejecutar(baseDatos.getSessionFactory(), session -> crearYRevisar());
+    }
+
+    @Benchmark
+    public List<Copia> unidadDeTrabajoConLotes() {
+        return UnidadDeTrabajo.ejecutar(baseDatos.getSessionFactory(), copias, session -> crearYRevisar());
+    }
+
+    /**
+     * Inserta una película y sus copias y después cambia el estado de todas ellas.
+     */
+    private List<Copia> crearYRevisar() {
+        Pelicula pelicula = new Pelicula();
+        pelicula.setTitulo("Estreno");
+        pelicula.setGenero("Drama");
+        pelicula.setAnio((short) 2024);
+        pelicula = peliculaRepository.save(pelicula);
+
+        List<Copia> guardadas = new ArrayList<>();
+        for (int i = 0; i < copias; i++) {
+            Copia copia = new Copia();
+            copia.setUser(user);
+            copia.setPelicula(pelicula);
+            copia.setEstado("Nueva");
+            copia.setSoporte("DVD");
+            guardadas.add(copiaRepository.save(copia));
+        }
+        for (Copia copia : guardadas) {
+            copiaRepository.updateById(copia.getId().longValue(), Map.of("estado", "Buena"));
+        }
+        return guardadas;
+    }
+}
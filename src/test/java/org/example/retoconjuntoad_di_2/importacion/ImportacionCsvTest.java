@@ -0,0 +1,53 @@
+package org.example.retoconjuntoad_di_2.importacion;
+
+import org.example.retoconjuntoad_di_2.benchmark.BaseDatosBenchmark;
+import org.example.retoconjuntoad_di_2.model.copia.CopiaRepository;
+import org.example.retoconjuntoad_di_2.model.copia.FormatoExportacion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ida y vuelta de un inventario: lo exportado en CSV se vuelve a importar sin perder datos.
+ */
+class ImportacionCsvTest {
+
+    @Test
+    void descripcionConSaltosDeLineaSobreviveExportarEImportar(@TempDir Path carpeta) throws IOException {
+        String descripcion = "Primera línea, con coma\nSegunda con \"comillas\"\n\nTras una línea en blanco";
+        Path fichero = carpeta.resolve("inventario.csv");
+
+        try (BaseDatosBenchmark origen = new BaseDatosBenchmark()) {
+            origen.sembrar(1, 1, 1);
+            origen.getSessionFactory().inTransaction(session ->
+                    session.createMutationQuery("update Pelicula p set p.descripcion = :descripcion")
+                            .setParameter("descripcion", descripcion)
+                            .executeUpdate());
+
+            try (FileChannel canal = FileChannel.open(fichero, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                long exportadas = new CopiaRepository(origen.getSessionFactory())
+                        .exportarPorUsuario(origen.getUsuarios().get(0).getId(), FormatoExportacion.CSV, canal);
+                assertEquals(1, exportadas);
+            }
+        }
+
+        try (BaseDatosBenchmark destino = new BaseDatosBenchmark()) {
+            destino.sembrar(1, 0, 0);
+            ResultadoImportacion resultado = new ImportadorInventario(destino.getSessionFactory(), 100)
+                    .importar(fichero, ImportadorInventario.Formato.CSV, destino.getUsuarios().get(0).getId(), null);
+
+            assertEquals(1, resultado.getFilasLeidas(), resultado.getDetalleErrores().toString());
+            assertEquals(0, resultado.getErrores(), resultado.getDetalleErrores().toString());
+            assertEquals(1, resultado.getCopiasCreadas());
+            String importada = destino.getSessionFactory().fromSession(session ->
+                    session.createQuery("select p.descripcion from Pelicula p", String.class).getSingleResult());
+            assertEquals(descripcion, importada);
+        }
+    }
+}
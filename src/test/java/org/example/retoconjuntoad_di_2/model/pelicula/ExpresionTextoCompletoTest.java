@@ -0,0 +1,24 @@
+package org.example.retoconjuntoad_di_2.model.pelicula;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExpresionTextoCompletoTest {
+
+    @Test
+    void descartaPalabrasQueInnoDbNoIndexa() {
+        assertEquals("+padrino*", PeliculaRepository.expresionTextoCompleto("El padrino"));
+        assertEquals("+guerra* +las* +galaxias*", PeliculaRepository.expresionTextoCompleto("La guerra de las galaxias"));
+        assertEquals("+Lord* +Rings*", PeliculaRepository.expresionTextoCompleto("The Lord of the Rings"));
+        assertEquals("+matrix*", PeliculaRepository.expresionTextoCompleto("+matrix -\"*\""));
+    }
+
+    @Test
+    void sinPalabrasIndexablesSeBuscaPorTitulo() {
+        assertEquals("", PeliculaRepository.expresionTextoCompleto("la"));
+        assertEquals("%la%", PeliculaRepository.patronTitulo(" la "));
+        assertEquals("%100!% o!_o!!%", PeliculaRepository.patronTitulo("100% o_o!"));
+        assertEquals("", PeliculaRepository.patronTitulo("   "));
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.retoconjuntoad_di_2.utils;
+
+import org.example.retoconjuntoad_di_2.model.copia.CopiaResumen;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndicePrefijosTest {
+
+    private IndicePrefijos<CopiaResumen> indice;
+
+    @BeforeEach
+    void crearIndice() {
+        indice = new IndicePrefijos<>(CopiaResumen::getTitulo);
+    }
+
+    @Test
+    void normalizarQuitaTildesYMayusculas() {
+        assertEquals("el nino y la garza", IndicePrefijos.normalizar("El Niño y la Garza"));
+        assertEquals("arbol", IndicePrefijos.normalizar("ÁRBOL"));
+        assertEquals("", IndicePrefijos.normalizar(null));
+    }
+
+    @Test
+    void buscarNoDistingueTildesNiMayusculas() {
+        indice.agregar(copia(1, "El Padrino"));
+        indice.agregar(copia(2, "él pacto"));
+        indice.agregar(copia(3, "Elefante"));
+        indice.agregar(copia(4, "Alien"));
+
+        assertEquals(Set.of(1, 2), ids(indice.buscar("EL PA")));
+        assertEquals(Set.of(1, 2), ids(indice.buscar("él pá")));
+        assertEquals(Set.of(1, 2, 3), ids(indice.buscar("el")));
+        assertEquals(Set.of(1, 2, 3, 4), ids(indice.buscar("")));
+    }
+
+    @Test
+    void buscarIncluyeClavesConCaracteresAltosTrasElPrefijo() {
+        indice.agregar(copia(1, "ab"));
+        indice.agregar(copia(2, "ab\uFFFE"));
+        indice.agregar(copia(3, "ab\uFFFF"));
+        indice.agregar(copia(4, "ab\uFFFFz"));
+        indice.agregar(copia(5, "ac"));
+        indice.agregar(copia(6, "aa\uFFFF"));
+
+        assertEquals(Set.of(1, 2, 3, 4), ids(indice.buscar("ab")));
+        assertEquals(Set.of(3, 4), ids(indice.buscar("ab\uFFFF")));
+    }
+
+    @Test
+    void rangoEsUnaVistaOrdenadaQueSigueAlIndice() {
+        indice.agregar(copia(1, "Bravo"));
+        indice.agregar(copia(2, "Alien"));
+        Collection<List<CopiaResumen>> rango = indice.rango("b");
+        assertEquals(1, rango.size());
+
+        // Se añade después de obtener la vista y aparece en ella, en orden alfabético
+        indice.agregar(copia(3, "Batman"));
+        indice.agregar(copia(4, "Casablanca"));
+        assertEquals(List.of("Batman", "Bravo"),
+                rango.stream().map(grupo -> grupo.get(0).getTitulo()).toList());
+
+        indice.agregar(copia(5, "a\uFFFF\uFFFF"));
+        indice.agregar(copia(6, "b"));
+        assertEquals(Set.of(5), ids(indice.buscar("a\uFFFF")));
+    }
+
+    @Test
+    void quitarYRenombrar() {
+        CopiaResumen original = copia(1, "Titanic");
+        CopiaResumen otra = copia(2, "Titanic");
+        indice.agregar(original);
+        indice.agregar(otra);
+
+        indice.quitar(original);
+        assertEquals(Set.of(2), ids(indice.buscar("tita")));
+
+        // Renombrar: la fila se sustituye por otra con el título nuevo
+        CopiaResumen renombrada = copia(2, "Tiburón");
+        indice.quitar(otra);
+        indice.agregar(renombrada);
+        assertTrue(indice.buscar("tita").isEmpty());
+        assertEquals(Set.of(2), ids(indice.buscar("tibu")));
+
+        indice.limpiar();
+        assertTrue(indice.buscar("").isEmpty());
+    }
+
+    private static CopiaResumen copia(int id, String titulo) {
+        return new CopiaResumen(id, titulo, "Drama", (short) 2000, "Buena", "DVD");
+    }
+
+    private static Set<Integer> ids(Set<CopiaResumen> copias) {
+        return copias.stream().map(CopiaResumen::getId).collect(Collectors.toSet());
+    }
+}